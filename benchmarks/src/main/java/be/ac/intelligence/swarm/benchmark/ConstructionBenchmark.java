@@ -0,0 +1,97 @@
+package be.ac.intelligence.swarm.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.ac.intelligence.swarm.Ant;
+import be.ac.intelligence.swarm.LocalPheromoneModel;
+import be.ac.intelligence.swarm.PermutationFlowShopProblem;
+import be.ac.intelligence.swarm.PfspSchedule;
+import be.ac.intelligence.swarm.PfspUtils;
+import be.ac.intelligence.swarm.PheromoneMatrix;
+import be.ac.intelligence.swarm.RandomUtils;
+
+/**
+ * Steps of the construction of a tour: candidate list of a half-built
+ * schedule and a complete tour of a single ant
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConstructionBenchmark {
+
+	@Param({ "20x5", "50x10", "100x20", "200x20", "500x20" })
+	public String size;
+
+	/**
+	 * Nearest neighbours considered first by the ant, 0 for the whole
+	 * candidate list
+	 */
+	@Param({ "0", "15" })
+	public int numNeighbours;
+
+	private PfspSchedule halfSchedule;
+	private Ant ant;
+
+	@Setup
+	public void setUp() throws IOException {
+		PermutationFlowShopProblem problem = new PermutationFlowShopProblem(
+				InstanceGenerator.write(size).getAbsolutePath());
+		int n = problem.getNumJobs();
+
+		halfSchedule = new PfspSchedule(problem);
+		for (int j = 0; j < n; j += 2) {
+			halfSchedule.scheduleJob(j);
+		}
+
+		// Same initialization done by the solver
+		double[] heuristicInformation = new double[n * n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				heuristicInformation[PfspUtils.index(i, j, n)] = 1.0 / problem.computeMakespan(i, j);
+			}
+		}
+		PheromoneMatrix pheromone = new PheromoneMatrix(n, heuristicInformation, 1.0, 2.0);
+		int refMakespan = problem.computeMakespan(IntStream.range(0, n).boxed().collect(Collectors.toList()));
+		double initialPheromone = 1.0 / (20 * refMakespan);
+		pheromone.fill(initialPheromone);
+		int k = Math.min(numNeighbours, n - 1);
+		ant = new Ant.AntBuilder().problem(problem).pheromone(pheromone).heuristicInformation(heuristicInformation)
+				.beta(2.0).pheromoneDecayCoeficient(0.1).q0(0.9).alpha(1.0).initialPheromoneGlobal(initialPheromone)
+				.random(new RandomUtils(0)).localPheromoneModel(LocalPheromoneModel.PER_ANT)
+				.nearestNeighbours(k > 0 ? PfspUtils.nearestNeighbours(heuristicInformation, n, k) : null, k)
+				.build();
+	}
+
+	@Benchmark
+	public int candidateList() {
+		return halfSchedule.computeCandidateList();
+	}
+
+	/**
+	 * Complete tour of an ant: two-job seed followed by the ACS construction
+	 */
+	@Benchmark
+	public int solveACS() {
+		ant.reset();
+		ant.constructSolution();
+		return ant.getMakespan();
+	}
+}
@@ -0,0 +1,86 @@
+package be.ac.intelligence.swarm.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates instances with the random number generator proposed by Taillard
+ * for his flow shop benchmarks: processing times uniformly distributed
+ * between 1 and 99, produced machine by machine.
+ */
+public class InstanceGenerator {
+
+	private static final long A = 16807;
+	private static final long B = 127773;
+	private static final long C = 2836;
+	private static final long M = 2147483647;
+
+	/**
+	 * Seed used for every generated instance so runs are comparable
+	 */
+	public static final long DEFAULT_SEED = 873654221;
+
+	private long seed;
+
+	public InstanceGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Next value of the generator between low and high (inclusive)
+	 * 
+	 * @param low
+	 * @param high
+	 * @return
+	 */
+	public int unif(int low, int high) {
+		long k = seed / B;
+		seed = A * (seed % B) - k * C;
+		if (seed < 0) {
+			seed += M;
+		}
+		double value = (double) seed / M;
+		return low + (int) Math.floor(value * (high - low + 1));
+	}
+
+	/**
+	 * Writes a new instance in the format read by the solver: a first line
+	 * with the number of jobs and machines and one line per machine with the
+	 * processing time of each job
+	 * 
+	 * @param numJobs
+	 * @param numMachines
+	 * @return Instance file, deleted when the JVM exits
+	 * @throws IOException
+	 */
+	public File write(int numJobs, int numMachines) throws IOException {
+		List<String> lines = new ArrayList<>();
+		lines.add(numJobs + " " + numMachines);
+		for (int i = 0; i < numMachines; i++) {
+			StringBuilder line = new StringBuilder();
+			for (int j = 0; j < numJobs; j++) {
+				line.append(unif(1, 99)).append(' ');
+			}
+			lines.add(line.toString());
+		}
+		File instance = File.createTempFile("pfsp-" + numJobs + "x" + numMachines + "-", ".txt");
+		instance.deleteOnExit();
+		Files.write(instance.toPath(), lines);
+		return instance;
+	}
+
+	/**
+	 * Writes an instance given its size as "jobsxmachines", e.g. "50x10"
+	 * 
+	 * @param size
+	 * @return
+	 * @throws IOException
+	 */
+	public static File write(String size) throws IOException {
+		String[] values = size.split("x");
+		return new InstanceGenerator(DEFAULT_SEED).write(Integer.parseInt(values[0]), Integer.parseInt(values[1]));
+	}
+}
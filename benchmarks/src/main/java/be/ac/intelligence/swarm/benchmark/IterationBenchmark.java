@@ -0,0 +1,67 @@
+package be.ac.intelligence.swarm.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.ac.intelligence.swarm.AntAlgorithm;
+import be.ac.intelligence.swarm.AntSolver;
+import be.ac.intelligence.swarm.AntSolver.AntSolverBuilder;
+import be.ac.intelligence.swarm.LocalPheromoneModel;
+
+/**
+ * One complete iteration of the colony with the default parameters of the
+ * application
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IterationBenchmark {
+
+	@Param({ "20x5", "50x10", "100x20", "200x20", "500x20" })
+	public String size;
+
+	@Param({ "true", "false" })
+	public boolean localSearch;
+
+	@Param({ "1" })
+	public int threads;
+
+	@Param({ "ACS", "MMAS" })
+	public AntAlgorithm algorithm;
+
+	private AntSolver solver;
+
+	@Setup
+	public void setUp() throws IOException {
+		solver = new AntSolverBuilder().instance(InstanceGenerator.write(size).getAbsolutePath()).numIterations(1)
+				.numAnts(20).seed(0).pheromoneDecayCoeficient(0.1).beta(2.0).alpha(1.0).q0(0.9).rho(0.1)
+				.numThreads(threads).localPheromoneModel(LocalPheromoneModel.PER_ANT).localSearch(localSearch)
+				.algorithm(algorithm).build();
+	}
+
+	@Benchmark
+	public void executeACSIteration() {
+		solver.executeACSIteration();
+	}
+
+	@TearDown
+	public void tearDown() {
+		solver.shutdown();
+	}
+}
@@ -0,0 +1,55 @@
+package be.ac.intelligence.swarm.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.ac.intelligence.swarm.InstanceLoader;
+
+/**
+ * Loading of the processing times of an instance, parsing the text file or
+ * reading its binary copy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoaderBenchmark {
+
+	@Param({ "20x5", "50x10", "100x20", "200x20", "500x20" })
+	public String size;
+
+	private Path instance;
+
+	@Setup
+	public void setUp() throws IOException {
+		instance = InstanceGenerator.write(size).toPath();
+		// Writes the binary copy used by the cached benchmark
+		InstanceLoader.load(instance, true);
+		InstanceLoader.getCacheFile(instance).toFile().deleteOnExit();
+	}
+
+	@Benchmark
+	public int[][] parse() {
+		return InstanceLoader.load(instance, false);
+	}
+
+	@Benchmark
+	public int[][] cached() {
+		return InstanceLoader.load(instance, true);
+	}
+}
@@ -0,0 +1,87 @@
+package be.ac.intelligence.swarm.benchmark;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.ac.intelligence.swarm.PermutationFlowShopProblem;
+
+/**
+ * Makespan computations: complete sequence, recomputation from the middle of
+ * the sequence and sequences of two jobs
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MakespanBenchmark {
+
+	@Param({ "20x5", "50x10", "100x20", "200x20", "500x20" })
+	public String size;
+
+	private PermutationFlowShopProblem problem;
+	private int[] sequence;
+	private int[][] makespanMatrix;
+	private int[] jobTimes1;
+	private int[] jobTimes2;
+	private int job1;
+	private int job2;
+
+	@Setup
+	public void setUp() throws IOException {
+		problem = new PermutationFlowShopProblem(InstanceGenerator.write(size).getAbsolutePath());
+		int n = problem.getNumJobs();
+		sequence = new int[n];
+		for (int i = 0; i < n; i++) {
+			sequence[i] = i;
+		}
+		Random random = new Random(0);
+		for (int i = n - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = sequence[i];
+			sequence[i] = sequence[j];
+			sequence[j] = tmp;
+		}
+		makespanMatrix = new int[problem.getNumMachines()][n];
+		// Fills the matrix so the recomputation from an offset is valid
+		problem.computeMakespan(sequence, n, 0, makespanMatrix);
+		job1 = sequence[0];
+		job2 = sequence[1];
+		jobTimes1 = problem.getJobs()[job1];
+		jobTimes2 = problem.getJobs()[job2];
+	}
+
+	@Benchmark
+	public int fullMakespan() {
+		return problem.computeMakespan(sequence, sequence.length, 0, makespanMatrix);
+	}
+
+	@Benchmark
+	public int offsetMakespan() {
+		return problem.computeMakespan(sequence, sequence.length, sequence.length / 2, makespanMatrix);
+	}
+
+	@Benchmark
+	public int twoJobMakespan() {
+		return problem.computeMakespan(job1, job2);
+	}
+
+	@Benchmark
+	public int twoJobMakespanFromTimes() {
+		return problem.computeMakespan(jobTimes1, jobTimes2);
+	}
+}
@@ -1,128 +1,223 @@
 package be.ac.intelligence.swarm;
 
-import java.util.AbstractMap;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-
-import org.apache.commons.lang3.SerializationUtils;
 
 public class Ant {
+	/**
+	 * Instance shared by the whole colony and the schedule under construction
+	 * owned by this ant
+	 */
 	private PermutationFlowShopProblem problem;
-	private Double[][] pheromone;
-	private Double[][] initialPheromone;
-	private Double[][] heuristicInformation;
-	private Double[][] insertionProbability;
+	private PfspSchedule schedule;
+	private Objective objective = Objective.MAKESPAN;
+	/**
+	 * Pheromone and choice information of the colony, read by the ant to
+	 * choose the next job. Square matrices of size numJobs stored as flat
+	 * row-major arrays. See {@link PfspUtils#index(int, int, int)}. The
+	 * heuristic information is shared with the colony and only read by the
+	 * ant.
+	 */
+	private PheromoneMatrix pheromone;
+	private double[] heuristicInformation;
+	private int numJobs;
 	private Double beta;
 	private Double alpha;
 	private Double pheromoneDecayCoeficient;
 	private Double q0;
 	private Double initialPheromoneGlobal;
+	/**
+	 * Random stream owned by the ant. Avoids sharing mutable state between
+	 * ants building their tours concurrently.
+	 */
+	private RandomUtils random;
+	private LocalPheromoneModel localPheromoneModel;
 
-	public Ant(final PermutationFlowShopProblem problem, final Double[][] pheromone,
-			final Double[][] heuristicInformation, final Double beta, final Double pheromoneDecayCoeficient,
-			final double q0, final Double alpha, final Double initialPheromoneGlobal) {
-		this.problem = SerializationUtils.clone(problem);
-		// this.problem = new PermutationFlowShopProblem(problem);
-		this.pheromone = PfspUtils.deepCopy(pheromone);
-		this.initialPheromone = PfspUtils.deepCopy(pheromone);
-		this.heuristicInformation = PfspUtils.deepCopy(heuristicInformation);
-		this.beta = beta;
-		this.alpha = alpha;
-		this.pheromoneDecayCoeficient = pheromoneDecayCoeficient;
-		this.q0 = q0;
-		this.initialPheromoneGlobal = initialPheromoneGlobal;
-		insertionProbability = new Double[problem.getNumJobs()][problem.getNumJobs()];
+	/**
+	 * Cumulative weights of the candidates for the random proportional rule,
+	 * reused in every step
+	 */
+	private double[] candidateWeights;
+
+	/**
+	 * Nearest neighbours of each job, numNeighbours per job stored as a flat
+	 * row-major array shared with the colony. When numNeighbours is zero the
+	 * ants choose among the whole candidate list.
+	 */
+	private int[] nearestNeighbours;
+	private int numNeighbours;
+
+	/**
+	 * Unscheduled neighbours of the last job, reused in every step
+	 */
+	private int[] neighbourCandidates;
+
+	/**
+	 * Last job chosen by the ant, the context of the next choice. With
+	 * insertion it is not necessarily the last job of the sequence.
+	 */
+	private int lastJob;
+
+	private ConstructionMode constructionMode = ConstructionMode.APPEND;
+
+	/**
+	 * Evaluates the insertion positions, only for the insertion mode
+	 */
+	private InsertionEvaluator insertionEvaluator;
+
+	/**
+	 * Creates an ant for the colony. The pheromone matrix is the one of the
+	 * colony, which is updated directly by the local update for the shared
+	 * model. See {@link AntBuilder}
+	 */
+	private Ant(AntBuilder builder) {
+		this.problem = builder.problem;
+		this.objective = builder.objective;
+		this.schedule = new PfspSchedule(problem, objective);
+		this.localPheromoneModel = builder.localPheromoneModel;
+		this.pheromone = builder.pheromone;
+		this.heuristicInformation = builder.heuristicInformation;
+		this.numJobs = problem.getNumJobs();
+		this.beta = builder.beta;
+		this.alpha = builder.alpha;
+		this.pheromoneDecayCoeficient = builder.pheromoneDecayCoeficient;
+		this.q0 = builder.q0;
+		this.initialPheromoneGlobal = builder.initialPheromoneGlobal;
+		this.random = builder.random;
+		this.candidateWeights = new double[numJobs];
+		this.nearestNeighbours = builder.nearestNeighbours;
+		this.numNeighbours = builder.numNeighbours;
+		this.neighbourCandidates = new int[numNeighbours];
+		this.constructionMode = builder.constructionMode;
+		if (constructionMode == ConstructionMode.INSERTION) {
+			this.insertionEvaluator = objective.insertionEvaluator(problem);
+		}
 	}
 
 	public Ant() {
 	}
 
 	/**
-	 * Copy Constructor
+	 * Copy Constructor. The copy draws from a new stream split from the one of
+	 * the original, so both can build their tours concurrently.
 	 * 
 	 * @param ant
 	 */
 	public Ant(final Ant ant) {
-		problem = SerializationUtils.clone(ant.getProblem());
-		this.pheromone = PfspUtils.deepCopy(ant.getPheromone());
-		this.heuristicInformation = PfspUtils.deepCopy(ant.getHeuristicInformation());
+		problem = ant.getProblem();
+		objective = ant.objective;
+		schedule = new PfspSchedule(ant.getSchedule());
+		this.numJobs = ant.numJobs;
+		this.heuristicInformation = ant.getHeuristicInformation();
 		this.beta = ant.getBeta();
 		this.alpha = ant.getAlpha();
-		this.pheromone = PfspUtils.deepCopy(ant.getPheromone());
-		this.initialPheromone = PfspUtils.deepCopy(ant.getPheromone());
+		this.localPheromoneModel = ant.getLocalPheromoneModel();
+		this.pheromone = ant.getPheromone();
 		this.pheromoneDecayCoeficient = ant.getPheromoneDecayCoeficient();
 		this.q0 = ant.getQ0();
 		this.initialPheromoneGlobal = ant.getInitialPheromoneGlobal();
-		this.insertionProbability = PfspUtils.deepCopy(ant.getInsertionProbability());
+		this.random = ant.getRandom().split();
+		this.candidateWeights = new double[numJobs];
+		this.nearestNeighbours = ant.nearestNeighbours;
+		this.numNeighbours = ant.numNeighbours;
+		this.neighbourCandidates = new int[numNeighbours];
+		this.lastJob = ant.lastJob;
+		this.constructionMode = ant.constructionMode;
+		if (constructionMode == ConstructionMode.INSERTION) {
+			this.insertionEvaluator = objective.insertionEvaluator(problem);
+		}
 	}
 
 	/**
-	 * Pseudo-random proportional rule probability computation
-	 * 
-	 * @param set
-	 * @param sets
-	 * @return
+	 * Prepares the ant for a new tour reusing its buffers: empties the
+	 * schedule. The ant keeps drawing from its own random stream.
 	 */
-	private Double pseudorandomProportionalProbability(Integer i, Integer j, List<Integer> candidateList) {
-		Double numerator = pheromone[i][j] * Math.pow(heuristicInformation[i][j], beta);
-		Double denominator = 0.0;
-		for (Integer l : candidateList) {
-			denominator += pheromone[i][l] * Math.pow(heuristicInformation[i][l], beta);
-		}
-		return numerator / denominator;
-	}
-
-	private List<ArgMaxValue> getArgMaxList(List<Integer> candidateList, Integer lastScheduledJob) {
-		List<ArgMaxValue> argMaxList = new ArrayList<>();
-		if (lastScheduledJob != null) {
-			for (Integer l : candidateList) {
-				argMaxList.add(new ArgMaxValue(
-						pheromone[lastScheduledJob][l] * Math.pow(heuristicInformation[lastScheduledJob][l], beta),
-						lastScheduledJob, l));
-			}
-		}
-		return argMaxList;
+	public void reset() {
+		schedule.reset();
 	}
 
 	/**
-	 * Returns the index for the max value of the Ant Colony System computation
+	 * Returns the candidate with the max value of the Ant Colony System
+	 * computation, tau^alpha * eta^beta, the first one in case of ties
 	 * 
 	 * @param candidateList
+	 * @param numCandidates
 	 * @param lastScheduledJob
 	 * @return
 	 */
-	private Integer getArgMaxValueIndex(List<Integer> candidateList, Integer lastScheduledJob) {
-		final Comparator<ArgMaxValue> comp = (p1, p2) -> Double.compare(p1.getValue(), p2.getValue());
-		ArgMaxValue max = getArgMaxList(candidateList, lastScheduledJob).stream().max(comp).get();
-		return max.getJ();
+	private int getArgMaxValueIndex(int[] candidateList, int numCandidates, int lastScheduledJob) {
+		double[] choiceInfo = pheromone.getChoiceInfo();
+		int row = PfspUtils.index(lastScheduledJob, 0, numJobs);
+		int best = candidateList[0];
+		double bestValue = choiceInfo[row + best];
+		for (int k = 1; k < numCandidates; k++) {
+			double value = choiceInfo[row + candidateList[k]];
+			if (value > bestValue) {
+				bestValue = value;
+				best = candidateList[k];
+			}
+		}
+		return best;
 	}
 
 	/**
 	 * Return the index of the next job to be chosen based on the candidate list
-	 * using the random proportional rule
+	 * using the random proportional rule. With nearest neighbours the choice
+	 * is made among the unscheduled neighbours of the last job, and among the
+	 * whole candidate list only when all of them are scheduled.
 	 * 
 	 * @return
 	 */
-	private Integer getNextJob() {
-		if (RandomUtils.getInstance(null).getRandomDouble() <= q0) {
-			return getArgMaxValueIndex(problem.getCandidateListValues(),
-					problem.getSolution().get(problem.getSolution().size() - 1));
+	private int getNextJob() {
+		int[] candidateList = neighbourCandidates;
+		int numCandidates = getUnscheduledNeighbours(lastJob);
+		if (numCandidates == 0) {
+			candidateList = schedule.getCandidateList();
+			numCandidates = schedule.computeCandidateList();
 		}
-		return getPseudoRandomJob(problem.getCandidateListValues(),
-				problem.getSolution().get(problem.getSolution().size() - 1));
+		if (random.getRandomDouble() <= q0) {
+			return getArgMaxValueIndex(candidateList, numCandidates, lastJob);
+		}
+		return getPseudoRandomJob(candidateList, numCandidates, lastJob);
 	}
 
-	private Integer getPseudoRandomJob(List<Integer> candidateList, Integer lastInsertedJob) {
-		List<Map.Entry<Integer, Double>> candidateProbabilities = new ArrayList<>();
-		for (Integer c : candidateList) {
-			candidateProbabilities.add(new AbstractMap.SimpleEntry<Integer, Double>(c,
-					pseudorandomProportionalProbability(lastInsertedJob, c, candidateList)));
+	/**
+	 * Copies the unscheduled nearest neighbours of the job, in order of
+	 * proximity, into the neighbour candidates. Runs in O(k).
+	 * 
+	 * @param job
+	 * @return Number of unscheduled neighbours
+	 */
+	private int getUnscheduledNeighbours(int job) {
+		int numCandidates = 0;
+		int row = PfspUtils.index(job, 0, numNeighbours);
+		for (int k = 0; k < numNeighbours; k++) {
+			int neighbour = nearestNeighbours[row + k];
+			if (!schedule.isScheduled(neighbour)) {
+				neighbourCandidates[numCandidates++] = neighbour;
+			}
 		}
-		return RandomUtils.getInstance(null).getRandomFromList(candidateProbabilities);
-//		return candidateProbabilities.get(0).getKey();
+		return numCandidates;
+	}
+
+	/**
+	 * Random proportional rule: chooses a candidate with probability
+	 * proportional to its choice information. The weights are cumulated in
+	 * place and searched by bisection, so they don't need to be normalized.
+	 * See {@link RandomUtils#sampleCumulative(double[], int)}
+	 * 
+	 * @param candidateList
+	 * @param numCandidates
+	 * @param lastInsertedJob
+	 * @return
+	 */
+	private int getPseudoRandomJob(int[] candidateList, int numCandidates, int lastInsertedJob) {
+		double[] choiceInfo = pheromone.getChoiceInfo();
+		int row = PfspUtils.index(lastInsertedJob, 0, numJobs);
+		for (int k = 0; k < numCandidates; k++) {
+			candidateWeights[k] = choiceInfo[row + candidateList[k]];
+		}
+		RandomUtils.cumulate(candidateWeights, numCandidates);
+		return candidateList[random.sampleCumulative(candidateWeights, numCandidates)];
 	}
 
 	/**
@@ -131,16 +226,36 @@ public class Ant {
 	 * proportional rule
 	 */
 	public void addNextJob() {
-		addNextJob(getNextJob());
+		int nextJob = getNextJob();
+		if (constructionMode == ConstructionMode.INSERTION) {
+			insertNextJob(nextJob);
+		} else {
+			addNextJob(nextJob);
+		}
+	}
+
+	/**
+	 * Inserts the job in the position of the partial sequence giving the
+	 * lowest value of the objective and recomputes the makespan from that
+	 * position
+	 * 
+	 * @param nextJob
+	 */
+	private void insertNextJob(int nextJob) {
+		int position = insertionEvaluator.bestInsertion(schedule.getSequence(), schedule.getNumScheduled(), nextJob);
+		schedule.insertJob(nextJob, position);
+		schedule.updateMakespan(position);
+		lastJob = nextJob;
 	}
 
 	/**
 	 * Add next job into the solution modifying the reference lists and
 	 * re-computing the makespan value
 	 */
-	public void addNextJob(Integer nextJob) {
-		problem.scheduleJob(nextJob);
-		problem.computeMakespan(problem.getSolution(), problem.getSolution().size() - 1);
+	public void addNextJob(int nextJob) {
+		schedule.scheduleJob(nextJob);
+		schedule.updateMakespan(schedule.getNumScheduled() - 1);
+		lastJob = nextJob;
 	}
 
 	/**
@@ -150,76 +265,95 @@ public class Ant {
 	 */
 	public void addNextJobs(List<Integer> nextJobs) {
 		for (Integer nj : nextJobs) {
-			problem.scheduleJob(nj);
-		}
-		problem.computeMakespan(problem.getSolution(), problem.getSolution().size() - nextJobs.size());
-	}
-
-	/**
-	 * Method to locally update the pheromone values
-	 */
-	private void updatePheromone() {
-		int solSize = problem.getSolution().size();
-		if (solSize > 1) {
-			this.updatePheromoneSingle(problem.getSolution().get(solSize - 2), problem.getSolution().get(solSize - 1));
+			schedule.scheduleJob(nj);
+			lastJob = nj;
 		}
+		schedule.updateMakespan(schedule.getNumScheduled() - nextJobs.size());
 	}
 
 	/**
 	 * Method to update a single value of the pheromone based on its indices for
-	 * the pheromone matrix
+	 * the pheromone matrix. For the shared model the value of the colony is
+	 * pulled towards the initial pheromone level. For the per-ant model the
+	 * update would pull the copy of the ant towards the value of the colony
+	 * it was copied from, leaving it unchanged, so there is nothing to do.
 	 */
 	public void updatePheromoneSingle(int i, int j) {
-		this.pheromone[i][j] = (1.0 - pheromoneDecayCoeficient) * pheromone[i][j]
-				+ (pheromoneDecayCoeficient * initialPheromone[i][j]);
+		if (localPheromoneModel == LocalPheromoneModel.SHARED) {
+			pheromone.set(i, j, (1.0 - pheromoneDecayCoeficient) * pheromone.get(i, j)
+					+ (pheromoneDecayCoeficient * initialPheromoneGlobal));
+		}
 	}
 
 	/**
 	 * Method to randomly select two jobs and check which permutation a-b or b-a
-	 * has a better makespan adding it as initial solution.
+	 * has a better value of the objective adding it as initial solution.
 	 */
 	public void preProcess() {
-		Integer a, b;
-		a = RandomUtils.getInstance(null).getRandomFromCollection(problem.getUnscheduledJobs());
+		IndexedIntSet unscheduledJobs = schedule.getUnscheduledJobs();
+		int a = random.getRandomElement(unscheduledJobs);
+		int b;
 		do {
-			b = RandomUtils.getInstance(null).getRandomFromCollection(problem.getUnscheduledJobs());
+			b = random.getRandomElement(unscheduledJobs);
 		} while (a == b);
-		if (problem.computeMakespan(a, b) < problem.computeMakespan(b, a)) {
-			addNextJobs(Arrays.asList(a, b));
-		} else {
-			addNextJobs(Arrays.asList(b, a));
-		}
+		boolean ab = objective.pairValue(problem, a, b) < objective.pairValue(problem, b, a);
+		schedule.scheduleJob(ab ? a : b);
+		schedule.scheduleJob(ab ? b : a);
+		schedule.updateMakespan(0);
+		lastJob = ab ? b : a;
+	}
+
+	/**
+	 * Builds a complete tour for the ant: two-job seed followed by the ACS
+	 * construction. Only touches state owned by the ant so it can be executed
+	 * concurrently with the rest of the colony.
+	 */
+	public void constructSolution() {
+		preProcess();
+		solveACS();
 	}
 
 	/**
 	 * Solution following the ACS approach
 	 */
 	public void solveACS() {
-		while (!problem.getUnscheduledJobs().isEmpty()) {
+		while (!schedule.getUnscheduledJobs().isEmpty()) {
+			int previousJob = lastJob;
 			addNextJob();
-			
-			updatePheromoneSingle(problem.getSolution().get(problem.getSolution().size() - 2),
-					problem.getSolution().get(problem.getSolution().size() - 1));
+			updatePheromoneSingle(previousJob, lastJob);
 		}
-		problem.computeMakespan(problem.getSolution(), 0);
+		schedule.updateMakespan(0);
 	}
 
 	/**
-	 * Proxy method to return the solution of the problem
+	 * Proxy method to return the solution of the schedule
 	 * 
 	 * @return
 	 */
 	public List<Integer> getSolution() {
-		return this.problem.getSolution();
+		return this.schedule.getSolution();
 	}
 
 	/**
-	 * Proxy method to return the makespan value of the problem
+	 * Proxy method to return the makespan value of the schedule
 	 * 
 	 * @return
 	 */
-	public Integer getMakespan() {
-		return this.problem.getMakespan();
+	public int getMakespan() {
+		return this.schedule.getMakespan();
+	}
+
+	/**
+	 * Proxy method to return the value of the objective for the schedule
+	 * 
+	 * @return
+	 */
+	public int getObjectiveValue() {
+		return this.schedule.getObjectiveValue();
+	}
+
+	public Objective getObjective() {
+		return objective;
 	}
 
 	public PermutationFlowShopProblem getProblem() {
@@ -230,22 +364,22 @@ public class Ant {
 		this.problem = problem;
 	}
 
-	public Double[][] getPheromone() {
+	public PfspSchedule getSchedule() {
+		return schedule;
+	}
+
+	public PheromoneMatrix getPheromone() {
 		return pheromone;
 	}
 
-	public void setPheromone(Double[][] pheromone) {
+	public void setPheromone(PheromoneMatrix pheromone) {
 		this.pheromone = pheromone;
 	}
 
-	public Double[][] getHeuristicInformation() {
+	public double[] getHeuristicInformation() {
 		return heuristicInformation;
 	}
 
-	public void setHeuristicInformation(Double[][] heuristicInformation) {
-		this.heuristicInformation = heuristicInformation;
-	}
-
 	public Double getBeta() {
 		return beta;
 	}
@@ -254,10 +388,6 @@ public class Ant {
 		return alpha;
 	}
 
-	public void setBeta(Double beta) {
-		this.beta = beta;
-	}
-
 	public Double getPheromoneDecayCoeficient() {
 		return pheromoneDecayCoeficient;
 	}
@@ -278,33 +408,130 @@ public class Ant {
 		this.q0 = q0;
 	}
 
-	public Double[][] getInsertionProbability() {
-		return insertionProbability;
+	public RandomUtils getRandom() {
+		return random;
+	}
+
+	public LocalPheromoneModel getLocalPheromoneModel() {
+		return localPheromoneModel;
+	}
+
+	public int getNumNeighbours() {
+		return numNeighbours;
 	}
 
-	private static class ArgMaxValue {
-		private final Double value;
-		private final Integer i;
-		private final Integer j;
+	public static class AntBuilder {
+		private PermutationFlowShopProblem problem;
+		private PheromoneMatrix pheromone;
+		private double[] heuristicInformation;
+		private Double beta;
+		private Double alpha;
+		private Double pheromoneDecayCoeficient;
+		private Double q0;
+		private Double initialPheromoneGlobal;
+		private RandomUtils random;
+		private LocalPheromoneModel localPheromoneModel = LocalPheromoneModel.PER_ANT;
+		private int[] nearestNeighbours;
+		private int numNeighbours;
+		private ConstructionMode constructionMode = ConstructionMode.APPEND;
+		private Objective objective = Objective.MAKESPAN;
 
-		public ArgMaxValue(Double value, Integer i, Integer j) {
-			this.value = value;
-			this.i = i;
-			this.j = j;
+		public AntBuilder problem(PermutationFlowShopProblem val) {
+			this.problem = val;
+			return this;
 		}
 
-		public Double getValue() {
-			return value;
+		/**
+		 * Pheromone of the colony, read through its choice information
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntBuilder pheromone(PheromoneMatrix val) {
+			this.pheromone = val;
+			return this;
 		}
 
-		public Integer getI() {
-			return i;
+		/**
+		 * Heuristic information of the colony, shared and only read
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntBuilder heuristicInformation(double[] val) {
+			this.heuristicInformation = val;
+			return this;
 		}
 
-		public Integer getJ() {
-			return j;
+		public AntBuilder beta(Double val) {
+			this.beta = val;
+			return this;
 		}
 
-	}
+		public AntBuilder alpha(Double val) {
+			this.alpha = val;
+			return this;
+		}
+
+		public AntBuilder pheromoneDecayCoeficient(Double val) {
+			this.pheromoneDecayCoeficient = val;
+			return this;
+		}
 
+		public AntBuilder q0(Double val) {
+			this.q0 = val;
+			return this;
+		}
+
+		public AntBuilder initialPheromoneGlobal(Double val) {
+			this.initialPheromoneGlobal = val;
+			return this;
+		}
+
+		/**
+		 * Random stream owned by the ant, not shared with any other ant
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntBuilder random(RandomUtils val) {
+			this.random = val;
+			return this;
+		}
+
+		public AntBuilder localPheromoneModel(LocalPheromoneModel val) {
+			this.localPheromoneModel = val;
+			return this;
+		}
+
+		/**
+		 * Restricts the choice to the nearest neighbours of the last job while
+		 * any of them is unscheduled, numNeighbours per job stored as a flat
+		 * row-major array. Zero neighbours, the default, to always choose among
+		 * the whole candidate list.
+		 *
+		 * @param neighbours
+		 * @param num
+		 * @return
+		 */
+		public AntBuilder nearestNeighbours(int[] neighbours, int num) {
+			this.nearestNeighbours = neighbours;
+			this.numNeighbours = num;
+			return this;
+		}
+
+		public AntBuilder constructionMode(ConstructionMode val) {
+			this.constructionMode = val;
+			return this;
+		}
+
+		public AntBuilder objective(Objective val) {
+			this.objective = val;
+			return this;
+		}
+
+		public Ant build() {
+			return new Ant(this);
+		}
+	}
 }
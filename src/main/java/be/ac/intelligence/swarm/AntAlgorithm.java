@@ -0,0 +1,29 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Variant of ant colony optimization executed by the solver
+ */
+public enum AntAlgorithm {
+	/**
+	 * Ant Colony System: local pheromone update while building the tours and
+	 * global update limited to the entries of the updating solution
+	 */
+	ACS,
+	/**
+	 * MAX-MIN Ant System: no local update, evaporation of the whole pheromone
+	 * matrix, pheromone kept between a lower and an upper bound derived from
+	 * the best makespan, and reinitialization of the pheromone when the
+	 * colony stagnates
+	 */
+	MMAS;
+
+	/**
+	 * Parses the value given in the command line, e.g. "acs" or "mmas"
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public static AntAlgorithm fromString(String value) {
+		return valueOf(value.trim().toUpperCase().replace('-', '_'));
+	}
+}
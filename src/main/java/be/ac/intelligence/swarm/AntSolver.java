@@ -1,7 +1,19 @@
 package be.ac.intelligence.swarm;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
 import org.apache.log4j.Logger;
@@ -13,14 +25,41 @@ public class AntSolver {
 	private PermutationFlowShopProblem problem;
 
 	/**
-	 * Pheromone and heuristic information matrices
+	 * Criterion minimized by the colony and its lower bound for the instance.
+	 * The values named makespan in the solver, e.g. the best makespan, hold
+	 * the value of this objective.
 	 */
-	private Double[][] pheromone;
-	private Double[][] heuristicInformation;
+	private Objective objective;
+	private int lowerBound;
+
+	/**
+	 * Pheromone and heuristic information matrices, stored as flat row-major
+	 * arrays. See {@link PfspUtils#index(int, int, int)}. The pheromone keeps
+	 * the choice information used by the ants up to date.
+	 */
+	private PheromoneMatrix pheromone;
+	private double[] heuristicInformation;
 
 	private ArrayList<Ant> ants;
+
+	/**
+	 * Best ant of the current iteration
+	 */
 	private Ant bestAnt;
 
+	/**
+	 * Best solution found since the beginning of the execution, copied from
+	 * the ants so they can be reused, and iteration in which it was found
+	 */
+	private int[] bestSequence;
+	private int bestMakespan;
+	private int bestIteration;
+
+	/**
+	 * Solution depositing pheromone after each iteration
+	 */
+	private PheromoneUpdatePolicy updatePolicy;
+
 	/**
 	 * Pheromone evaporation rate
 	 */
@@ -32,10 +71,67 @@ public class AntSolver {
 	private Integer numAnts;
 
 	/**
-	 * Number of iterations
+	 * Number of iterations, null or lower than one for no limit
 	 */
 	private Integer numIterations;
 
+	/**
+	 * Termination criteria checked after each iteration besides the number of
+	 * iterations. Null values disable the criterion. The execution also stops
+	 * when the lower bound of the objective is reached.
+	 */
+	private Long maxWallTime;
+	private Long maxCpuTime;
+	private Integer targetMakespan;
+	private Integer stagnationLimit;
+
+	/**
+	 * CPU time spent by the worker threads building the tours, measured only
+	 * with a CPU time budget
+	 */
+	private LongAdder workerCpuTime = new LongAdder();
+	private ThreadMXBean threadBean;
+
+	private TerminationReason terminationReason;
+	private int iterationsExecuted;
+
+	/**
+	 * Set from another thread to stop the execution after the current
+	 * iteration
+	 */
+	private volatile boolean stopRequested;
+
+	private IterationListener iterationListener;
+
+	/**
+	 * Receives the measures of each iteration, null to measure nothing
+	 */
+	private MetricsSink metricsSink;
+
+	/**
+	 * Insertions evaluated by the local search since the beginning of the
+	 * execution
+	 */
+	private long localSearchEvaluations;
+
+	/**
+	 * Complete tours built since the beginning of the execution
+	 */
+	private long toursBuilt;
+
+	/**
+	 * Receives the improvements of the best-so-far solution, null for none
+	 */
+	private ConvergenceTrace convergenceTrace;
+	private long executionStart;
+
+	/**
+	 * Bytes allocated by the worker threads building the tours, measured only
+	 * with a metrics sink when the JVM supports it
+	 */
+	private LongAdder workerAllocatedBytes = new LongAdder();
+	private com.sun.management.ThreadMXBean allocationBean;
+
 	private Double beta;
 
 	private Double pheromoneDecayCoeficient;
@@ -46,79 +142,507 @@ public class AntSolver {
 
 	private double initPheromoneValGlobal;
 
-	private AntSolver(String instance, Double rho, Double beta, Integer numAnts, Integer numIterations,
-			Double pheromoneDecayCoeficient, Double q0, Integer seed, Double alpha) {
+	/**
+	 * Number of worker threads used to build the tours of the colony. Values
+	 * lower or equal to one keep the construction sequential.
+	 */
+	private Integer numThreads;
+
+	/**
+	 * Random stream of the solver. Seeds the streams of the ants, drawn
+	 * sequentially so results don't depend on the number of threads.
+	 */
+	private RandomUtils random;
+
+	private ExecutorService executor;
+
+	/**
+	 * Matrix modified by the local pheromone update of the ants
+	 */
+	private LocalPheromoneModel localPheromoneModel;
+
+	/**
+	 * Enables the insertion local search on the best ant of each iteration
+	 */
+	private boolean localSearch;
+	private InsertionEvaluator insertionEvaluator;
+	private int[] localSearchSequence;
+	private int[] localSearchOrder;
+
+	/**
+	 * Number of nearest neighbours of each job considered first by the ants,
+	 * zero to always consider the whole candidate list. The neighbours of
+	 * each job are its successors with the highest heuristic information.
+	 */
+	private int numNeighbours;
+	private int[] nearestNeighbours;
+
+	private AntAlgorithm algorithm;
+
+	private ConstructionMode constructionMode;
+
+	/**
+	 * NEH solution, null without NEH seeding. Gives the reference makespan of
+	 * the initial pheromone and is the initial best-so-far solution of every
+	 * execution.
+	 */
+	private int[] nehSequence;
+	private int nehMakespan;
+
+	/**
+	 * Bounds of the pheromone for MAX-MIN Ant System. The upper bound follows
+	 * the best makespan, the lower bound keeps a fixed ratio to it.
+	 */
+	private double maxPheromone;
+	private double minPheromone;
+	private double minPheromoneRatio;
+
+	/**
+	 * Iteration of the last reinitialization of the pheromone, zero if there
+	 * was none, and best solution found since then. The restart-best takes
+	 * the place of the best-so-far in the pheromone update, otherwise the
+	 * colony would converge again to the same solution.
+	 */
+	private int restartIteration;
+	private int[] restartBestSequence;
+	private int restartBestMakespan;
+	private int restartBestIteration;
+
+	/**
+	 * Parameters of the stagnation detection of MAX-MIN Ant System, taken
+	 * from the reference implementation of Stutzle: the branching factor is
+	 * computed every BRANCHING_FACTOR_PERIOD iterations and the pheromone is
+	 * reinitialized when it's below RESTART_BRANCHING_FACTOR and the best
+	 * solution hasn't improved for RESTART_STAGNATION iterations
+	 */
+	private static final double LAMBDA = 0.05;
+	private static final double RESTART_BRANCHING_FACTOR = 1.00001;
+	private static final int BRANCHING_FACTOR_PERIOD = 100;
+	private static final int RESTART_STAGNATION = 250;
+
+	/**
+	 * Probability of building the best solution once the colony converged,
+	 * used to derive the lower bound of the pheromone
+	 */
+	private static final double P_BEST = 0.05;
+
+	private AntSolver(String instance, PermutationFlowShopProblem sharedProblem, Double rho, Double beta,
+			Integer numAnts, Integer numIterations, Double pheromoneDecayCoeficient, Double q0, Integer seed,
+			Double alpha, Integer numThreads, LocalPheromoneModel localPheromoneModel, Boolean localSearch,
+			Integer numNeighbours, Boolean instanceCache, Long maxWallTime, Long maxCpuTime, Integer targetMakespan,
+			Integer stagnationLimit, PheromoneUpdatePolicy updatePolicy, AntAlgorithm algorithm,
+			MetricsSink metricsSink, ConvergenceTrace convergenceTrace, Boolean nehSeeding,
+			ConstructionMode constructionMode, Objective objective) {
+		if ((numIterations == null || numIterations < 1) && maxWallTime == null && maxCpuTime == null
+				&& targetMakespan == null && stagnationLimit == null) {
+			throw new IllegalArgumentException("At least one termination criterion is needed");
+		}
 		// Initialize random utilities with seed parameter
-		RandomUtils.getInstance(seed);
-		problem = new PermutationFlowShopProblem(instance);
-		this.pheromone = new Double[problem.getNumJobs()][problem.getNumJobs()];
+		this.random = new RandomUtils(seed != null ? seed : System.nanoTime());
+		this.numThreads = numThreads != null ? numThreads : 1;
+		this.localPheromoneModel = localPheromoneModel != null ? localPheromoneModel : LocalPheromoneModel.PER_ANT;
+		this.algorithm = algorithm != null ? algorithm : AntAlgorithm.ACS;
+		if (this.algorithm == AntAlgorithm.MMAS && this.localPheromoneModel == LocalPheromoneModel.SHARED) {
+			LOGGER.warn("MAX-MIN Ant System has no local pheromone update, ignoring the shared model");
+			this.localPheromoneModel = LocalPheromoneModel.PER_ANT;
+		}
+		if (this.localPheromoneModel == LocalPheromoneModel.SHARED && this.numThreads > 1) {
+			LOGGER.warn("Ants sharing the pheromone matrix are built sequentially, ignoring the number of threads");
+			this.numThreads = 1;
+		}
+		this.problem = sharedProblem != null ? sharedProblem
+				: new PermutationFlowShopProblem(instance, instanceCache != null && instanceCache);
+		this.objective = objective != null ? objective : Objective.MAKESPAN;
+		this.objective.validate(problem);
+		this.lowerBound = this.objective.lowerBound(problem);
+		this.localSearch = localSearch != null && localSearch;
+		this.updatePolicy = updatePolicy != null ? updatePolicy : PheromoneUpdatePolicy.ITERATION_BEST;
+		this.constructionMode = constructionMode != null ? constructionMode : ConstructionMode.APPEND;
+		this.bestSequence = new int[problem.getNumJobs()];
+		this.bestMakespan = Integer.MAX_VALUE;
+		this.restartBestSequence = new int[problem.getNumJobs()];
+		this.restartBestMakespan = Integer.MAX_VALUE;
+		this.insertionEvaluator = this.objective.insertionEvaluator(problem);
+		this.localSearchSequence = new int[problem.getNumJobs()];
+		this.localSearchOrder = new int[problem.getNumJobs()];
 		this.numAnts = numAnts;
 		this.numIterations = numIterations;
+		this.maxWallTime = maxWallTime;
+		this.maxCpuTime = maxCpuTime;
+		this.targetMakespan = targetMakespan;
+		this.stagnationLimit = stagnationLimit;
+		this.metricsSink = metricsSink;
+		this.convergenceTrace = convergenceTrace;
+		if (metricsSink != null && ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory
+					.getThreadMXBean();
+			if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+				this.allocationBean = bean;
+			}
+		}
+		if (maxCpuTime != null) {
+			this.threadBean = ManagementFactory.getThreadMXBean();
+			if (!threadBean.isCurrentThreadCpuTimeSupported()) {
+				throw new UnsupportedOperationException("CPU time budget not supported by the JVM");
+			}
+		}
 		this.rho = rho;
 		this.beta = beta;
-		this.alpha = alpha;
+		this.alpha = alpha != null ? alpha : 1.0;
 		this.pheromoneDecayCoeficient = pheromoneDecayCoeficient;
 		this.q0 = q0;
 		this.ants = new ArrayList<>();
 		initHeuristicInformation();
+		initNearestNeighbours(numNeighbours != null ? numNeighbours : 0);
+		this.pheromone = new PheromoneMatrix(problem.getNumJobs(), heuristicInformation, this.alpha, beta);
+		if (nehSeeding != null && nehSeeding) {
+			initNeh();
+		}
 		initPheromone();
+		initAnts();
 	}
 
-	public void execute() {
-		Integer currentIteration = 0;
-		while (currentIteration < numIterations) {
-			// LOGGER.debug("iteration: " + currentIteration);
-			initAnts();
-			executeACSIteration();
-			if (LOGGER.isDebugEnabled()) {
-				LOGGER.debug(currentIteration + ": " + bestAnt.getMakespan() + ", " + bestAnt.getSolution());
+	/**
+	 * Iterates until one of the termination criteria is met
+	 *
+	 * @return Best solution found during the execution
+	 */
+	public SolverResult execute() {
+		long startTime = System.nanoTime();
+		long startCpuTime = maxCpuTime != null ? threadBean.getCurrentThreadCpuTime() : 0;
+		executionStart = startTime;
+		workerCpuTime.reset();
+		iterationsExecuted = 0;
+		toursBuilt = 0;
+		localSearchEvaluations = 0;
+		bestMakespan = Integer.MAX_VALUE;
+		bestIteration = 0;
+		restartIteration = 0;
+		restartBestMakespan = Integer.MAX_VALUE;
+		restartBestIteration = 0;
+		terminationReason = null;
+		if (nehSequence != null) {
+			System.arraycopy(nehSequence, 0, bestSequence, 0, bestSequence.length);
+			System.arraycopy(nehSequence, 0, restartBestSequence, 0, restartBestSequence.length);
+			bestMakespan = nehMakespan;
+			restartBestMakespan = nehMakespan;
+			traceImprovement();
+		}
+		try {
+			while (terminationReason == null) {
+				executeACSIteration();
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug(iterationsExecuted + ": " + bestAnt.getObjectiveValue() + ", " + bestAnt.getSolution());
+				}
+				if (iterationListener != null) {
+					iterationListener.afterIteration(this);
+				}
+				terminationReason = checkTermination(iterationsExecuted - bestIteration, startTime, startCpuTime);
 			}
-			currentIteration++;
+		} finally {
+			shutdown();
+		}
+		LOGGER.info("Execution stopped after " + iterationsExecuted + " iterations: " + terminationReason);
+		LOGGER.info("Best " + objective + " achieved: " + bestMakespan + " for the sequence: "
+				+ Arrays.toString(bestSequence));
+		return new SolverResult(bestSequence, bestMakespan, iterationsExecuted, bestIteration, terminationReason,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+	}
+
+	/**
+	 * Checks the termination criteria after an iteration. Only reads the
+	 * clocks that are needed by the configured criteria.
+	 *
+	 * @param iterationsWithoutImprovement
+	 * @param startTime
+	 * @param startCpuTime
+	 * @return The criterion met, null to keep iterating
+	 */
+	private TerminationReason checkTermination(int iterationsWithoutImprovement, long startTime, long startCpuTime) {
+		if (stopRequested) {
+			return TerminationReason.STOPPED;
+		}
+		if (bestMakespan <= lowerBound) {
+			return TerminationReason.LOWER_BOUND;
+		}
+		if (targetMakespan != null && bestMakespan <= targetMakespan) {
+			return TerminationReason.TARGET;
+		}
+		if (numIterations != null && numIterations > 0 && iterationsExecuted >= numIterations) {
+			return TerminationReason.ITERATIONS;
+		}
+		if (stagnationLimit != null && iterationsWithoutImprovement >= stagnationLimit) {
+			return TerminationReason.STAGNATION;
+		}
+		if (maxWallTime != null && System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(maxWallTime)) {
+			return TerminationReason.WALL_TIME;
+		}
+		if (maxCpuTime != null && threadBean.getCurrentThreadCpuTime() - startCpuTime
+				+ workerCpuTime.sum() >= TimeUnit.MILLISECONDS.toNanos(maxCpuTime)) {
+			return TerminationReason.CPU_TIME;
+		}
+		return null;
+	}
+
+	/**
+	 * Stops the execution, from any thread, once the current iteration
+	 * finishes. Also stops an execution that didn't start yet.
+	 */
+	public void requestStop() {
+		stopRequested = true;
+	}
 
+	/**
+	 * Adopts a solution found outside the colony, e.g. by another island of
+	 * {@link IslandSolver}, when it's better than the best-so-far. The value
+	 * of the sequence is evaluated by the solver, never taken from the
+	 * sender. It replaces the best-so-far and restart-best solutions and
+	 * deposits pheromone once with the global update of the algorithm.
+	 *
+	 * @param sequence
+	 *            Complete sequence of jobs, copied
+	 * @return Whether the solution was adopted
+	 */
+	public boolean acceptSolution(int[] sequence) {
+		int makespan = objective.evaluate(problem, sequence);
+		if (makespan >= bestMakespan) {
+			return false;
+		}
+		System.arraycopy(sequence, 0, bestSequence, 0, bestSequence.length);
+		bestMakespan = makespan;
+		bestIteration = iterationsExecuted;
+		traceImprovement();
+		System.arraycopy(sequence, 0, restartBestSequence, 0, restartBestSequence.length);
+		restartBestMakespan = makespan;
+		restartBestIteration = iterationsExecuted;
+		if (algorithm == AntAlgorithm.MMAS) {
+			updatePheromoneMMAS(bestSequence, makespan);
+		} else {
+			updatePheromone(bestSequence, makespan);
 		}
-		LOGGER.info("Best makespan achieved: " + bestAnt.getMakespan() + " for the sequence: " + bestAnt.getSolution());
+		return true;
 	}
 
 	/**
-	 * Executes a round on the whole colony for the ACS algorithm
+	 * Executes a round on the whole colony for the configured algorithm,
+	 * keeping the best-so-far solution and depositing pheromone according to
+	 * the update policy
 	 */
 	public void executeACSIteration() {
+		boolean measure = metricsSink != null;
+		long startTime = measure ? System.nanoTime() : 0;
+		long startAllocated = measure ? allocatedBytes() : 0;
+		long startEvaluations = localSearchEvaluations;
+		resetAnts();
+		constructSolutions();
+		// Reduction done in the order of the colony to keep the same
+		// iteration-best independently of the number of threads
 		bestAnt = ants.get(0);
 		for (Ant ant : ants) {
-			ant.preProcess();
-			ant.solveACS();
-			if (ant.getMakespan() < bestAnt.getMakespan()) {
+			if (ant.getObjectiveValue() < bestAnt.getObjectiveValue()) {
 				bestAnt = ant;
 			}
 		}
+		long constructedTime = measure ? System.nanoTime() : 0;
 		performLocalSearch();
-		updatePheromone((ArrayList<Integer>) bestAnt.getSolution(), bestAnt.getMakespan());
+		long searchedTime = measure ? System.nanoTime() : 0;
+		iterationsExecuted++;
+		toursBuilt += ants.size();
+		if (bestAnt.getObjectiveValue() < bestMakespan) {
+			System.arraycopy(bestAnt.getSchedule().getSequence(), 0, bestSequence, 0, bestSequence.length);
+			bestMakespan = bestAnt.getObjectiveValue();
+			bestIteration = iterationsExecuted;
+			traceImprovement();
+		}
+		if (bestAnt.getObjectiveValue() < restartBestMakespan) {
+			System.arraycopy(bestAnt.getSchedule().getSequence(), 0, restartBestSequence, 0,
+					restartBestSequence.length);
+			restartBestMakespan = bestAnt.getObjectiveValue();
+			restartBestIteration = iterationsExecuted;
+		}
+		// The schedule of the mixed policy starts again after a restart
+		boolean useBestSoFar = updatePolicy.usesBestSoFar(iterationsExecuted - restartIteration);
+		int[] sequence = useBestSoFar ? restartBestSequence : bestAnt.getSchedule().getSequence();
+		int makespan = useBestSoFar ? restartBestMakespan : bestAnt.getObjectiveValue();
+		if (algorithm == AntAlgorithm.MMAS) {
+			updatePheromoneMMAS(sequence, makespan);
+			checkRestart();
+		} else {
+			updatePheromone(sequence, makespan);
+		}
+		if (measure) {
+			recordMetrics(startTime, constructedTime, searchedTime, startAllocated,
+					localSearchEvaluations - startEvaluations);
+		}
+	}
+
+	private void traceImprovement() {
+		if (convergenceTrace != null) {
+			convergenceTrace.improved(System.nanoTime() - executionStart, iterationsExecuted,
+					toursBuilt + localSearchEvaluations, bestMakespan);
+		}
+	}
+
+	/**
+	 * Sends the measures of the iteration just executed to the metrics sink
+	 *
+	 * @param startTime
+	 * @param constructedTime
+	 * @param searchedTime
+	 * @param startAllocated
+	 * @param insertions
+	 *            Insertions evaluated by the local search
+	 */
+	private void recordMetrics(long startTime, long constructedTime, long searchedTime, long startAllocated,
+			long insertions) {
+		long endTime = System.nanoTime();
+		long sum = 0;
+		int worst = 0;
+		for (Ant ant : ants) {
+			sum += ant.getObjectiveValue();
+			worst = Math.max(worst, ant.getObjectiveValue());
+		}
+		long allocated = allocationBean != null ? allocatedBytes() - startAllocated : -1;
+		metricsSink.record(new IterationMetrics(iterationsExecuted, bestAnt.getObjectiveValue(),
+				(double) sum / ants.size(), worst, bestMakespan, constructedTime - startTime,
+				searchedTime - constructedTime, endTime - searchedTime, ants.size() + insertions, allocated));
+	}
+
+	/**
+	 * Bytes allocated so far by the current thread and the worker threads
+	 *
+	 * @return
+	 */
+	private long allocatedBytes() {
+		if (allocationBean == null) {
+			return 0;
+		}
+		return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId()) + workerAllocatedBytes.sum();
+	}
+
+	/**
+	 * Builds the tours of all the ants of the colony, concurrently when more
+	 * than one thread is configured
+	 */
+	private void constructSolutions() {
+		if (numThreads <= 1) {
+			for (Ant ant : ants) {
+				ant.constructSolution();
+			}
+			return;
+		}
+		List<Callable<Void>> tasks = new ArrayList<>(ants.size());
+		for (Ant ant : ants) {
+			tasks.add(() -> {
+				long start = maxCpuTime != null ? threadBean.getCurrentThreadCpuTime() : 0;
+				long threadId = Thread.currentThread().getId();
+				long allocated = allocationBean != null ? allocationBean.getThreadAllocatedBytes(threadId) : 0;
+				ant.constructSolution();
+				if (maxCpuTime != null) {
+					workerCpuTime.add(threadBean.getCurrentThreadCpuTime() - start);
+				}
+				if (allocationBean != null) {
+					workerAllocatedBytes.add(allocationBean.getThreadAllocatedBytes(threadId) - allocated);
+				}
+				return null;
+			});
+		}
+		try {
+			for (Future<Void> task : getExecutor().invokeAll(tasks)) {
+				task.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while building the tours of the colony", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error building the tour of an ant", e.getCause());
+		}
+	}
+
+	private ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = new ForkJoinPool(numThreads);
+		}
+		return executor;
+	}
+
+	/**
+	 * Releases the worker threads used for the parallel construction, if any
+	 */
+	public void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
 	}
 
 	/**
-	 * Initializes the ants
+	 * Initializes the ants. Done once, the ants are reused in every iteration.
+	 * Each ant gets its own stream split from the solver stream, so the tours
+	 * don't depend on the threads building them.
 	 */
 	private void initAnts() {
 		this.ants = new ArrayList<>();
 		for (int i = 0; i < numAnts; i++) {
-			this.ants.add(new Ant(problem, pheromone, heuristicInformation, beta, pheromoneDecayCoeficient, q0, alpha,
-					initPheromoneValGlobal));
+			this.ants.add(new Ant.AntBuilder().problem(problem).pheromone(pheromone)
+					.heuristicInformation(heuristicInformation).beta(beta).alpha(alpha)
+					.pheromoneDecayCoeficient(pheromoneDecayCoeficient).q0(q0)
+					.initialPheromoneGlobal(initPheromoneValGlobal).random(random.split())
+					.localPheromoneModel(localPheromoneModel).nearestNeighbours(nearestNeighbours, numNeighbours)
+					.constructionMode(constructionMode).objective(objective).build());
 			// this.ants.add(new Ant());
 		}
 
 	}
 
 	/**
-	 * Updates pheromone in a global way for all node values.
+	 * Prepares the ants for a new iteration
+	 */
+	private void resetAnts() {
+		for (Ant ant : ants) {
+			ant.reset();
+		}
+	}
+
+	/**
+	 * Global update of MAX-MIN Ant System: evaporates every entry, deposits
+	 * pheromone on the entries of the sequence and keeps every value between
+	 * the pheromone bounds, which follow the best makespan. Values of the
+	 * objective below one, e.g. no tardiness, deposit as much as one.
 	 * 
-	 * @param minimumMakespan
+	 * @param sequence
+	 *            Complete sequence of jobs
+	 * @param makespan
 	 */
-	public void updatePheromone(Integer minimumMakespan) {
-		// TODO: Optionally add evaporate pheromone using concepts of min-max
-		for (int i = 0; i < this.problem.getNumJobs(); i++) {
-			for (int j = 0; j < this.problem.getNumJobs(); j++) {
-				updatePheromone(i, j, minimumMakespan);
-			}
+	public void updatePheromoneMMAS(int[] sequence, int makespan) {
+		maxPheromone = 1.0 / (rho * Math.max(1, bestMakespan));
+		minPheromone = maxPheromone * minPheromoneRatio;
+		pheromone.evaporate(1.0 - rho, minPheromone);
+		double deposit = 1.0 / Math.max(1, makespan);
+		for (int i = 0; i < sequence.length - 1; i++) {
+			pheromone.set(sequence[i], sequence[i + 1],
+					Math.min(pheromone.get(sequence[i], sequence[i + 1]) + deposit, maxPheromone));
+		}
+	}
+
+	/**
+	 * Reinitializes the pheromone to the upper bound when the branching
+	 * factor shows that the colony converged and the best solution isn't
+	 * improving
+	 */
+	private void checkRestart() {
+		int iterations = iterationsExecuted - restartIteration;
+		if (iterations % BRANCHING_FACTOR_PERIOD != 0
+				|| iterationsExecuted - restartBestIteration <= RESTART_STAGNATION) {
+			return;
+		}
+		double branchingFactor = pheromone.branchingFactor(LAMBDA);
+		if (branchingFactor < RESTART_BRANCHING_FACTOR) {
+			LOGGER.debug("Reinitializing the pheromone after iteration " + iterationsExecuted
+					+ ", branching factor " + branchingFactor);
+			pheromone.fill(maxPheromone);
+			restartIteration = iterationsExecuted;
+			restartBestMakespan = Integer.MAX_VALUE;
 		}
 	}
 
@@ -126,71 +650,201 @@ public class AntSolver {
 	 * Updates the pheromone nodes contained in the solution sequence as
 	 * suggested by the literature for ACS
 	 * 
-	 * @param solution
+	 * @param sequence
+	 *            Complete sequence of jobs
 	 * @param minimumMakespan
 	 */
-	public void updatePheromone(ArrayList<Integer> solution, Integer minimumMakespan) {
-		for (int i = 0; i < solution.size() - 1; i++) {
-			updatePheromone(solution.get(i), solution.get(i + 1), minimumMakespan);
+	public void updatePheromone(int[] sequence, int minimumMakespan) {
+		for (int i = 0; i < sequence.length - 1; i++) {
+			updatePheromone(sequence[i], sequence[i + 1], minimumMakespan);
 		}
 	}
 
 	/**
 	 * Extracted method to allow pheromone updates only to specific nodes
-	 * depending on conditions given by the algorithm
+	 * depending on conditions given by the algorithm. Values of the
+	 * objective below one deposit as much as one.
 	 * 
 	 * @param i
 	 * @param j
 	 * @param minimumMakespan
 	 */
-	public void updatePheromone(Integer i, Integer j, Integer minimumMakespan) {
-		this.pheromone[i][j] = (1 - rho) * this.pheromone[i][j] + (rho / minimumMakespan);
+	public void updatePheromone(int i, int j, int minimumMakespan) {
+		this.pheromone.set(i, j, (1 - rho) * this.pheromone.get(i, j) + (rho / Math.max(1, minimumMakespan)));
 	}
 
 	/**
-	 * Computes the distance between each of the jobs using the makespan
-	 * computation between two jobs (i, j) as distance value stored in a two
-	 * dimensional array for easy access
+	 * Computes the distance between each of the jobs using the value of the
+	 * objective for the sequence of two jobs (i, j) as distance value stored
+	 * in a two dimensional array for easy access
 	 */
 	private void initHeuristicInformation() {
-		this.heuristicInformation = new Double[problem.getNumJobs()][problem.getNumJobs()];
-		for (int i = 0; i < problem.getNumJobs(); i++) {
-			for (int j = i; j < problem.getNumJobs(); j++) {
-				this.heuristicInformation[i][j] = 1.0 / this.problem.computeMakespan(i, j);
+		int n = problem.getNumJobs();
+		this.heuristicInformation = new double[n * n];
+		for (int i = 0; i < n; i++) {
+			for (int j = i; j < n; j++) {
+				this.heuristicInformation[PfspUtils.index(i, j, n)] = objective.heuristic(problem, i, j);
 				if (j != i) {
-					this.heuristicInformation[j][i] = 1.0 / this.problem.computeMakespan(j, i);
+					this.heuristicInformation[PfspUtils.index(j, i, n)] = objective.heuristic(problem, j, i);
 				}
 			}
 		}
 	}
 
 	/**
-	 * Initializes the pheromone values using a random tour as reference
+	 * Computes the nearest neighbours of each job from the heuristic
+	 * information. Done once, the lists don't change during the execution.
+	 * 
+	 * @param k
+	 */
+	private void initNearestNeighbours(int k) {
+		this.numNeighbours = Math.max(0, Math.min(k, problem.getNumJobs() - 1));
+		if (numNeighbours > 0) {
+			this.nearestNeighbours = PfspUtils.nearestNeighbours(heuristicInformation, problem.getNumJobs(),
+					numNeighbours);
+		}
+	}
+
+	/**
+	 * Builds the NEH solution of the instance
+	 */
+	private void initNeh() {
+		nehSequence = NehHeuristic.solve(problem, insertionEvaluator);
+		nehMakespan = objective.evaluate(problem, nehSequence);
+		LOGGER.debug("NEH " + objective + ": " + nehMakespan);
+	}
+
+	/**
+	 * Initializes the pheromone values using the NEH solution as reference,
+	 * or a random tour without NEH seeding
 	 */
 	private void initPheromone() {
-		ArrayList<Integer> seq = new ArrayList<>(problem.getUnscheduledJobs());
-		Collections.shuffle(seq);
-		Integer refMakespan = problem.computeMakespan(seq, 0);
+		int refMakespan;
+		if (nehSequence != null) {
+			refMakespan = nehMakespan;
+		} else {
+			List<Integer> seq = IntStream.range(0, problem.getNumJobs()).boxed().collect(Collectors.toList());
+			random.shuffle(seq);
+			refMakespan = objective.evaluate(problem, seq.stream().mapToInt(Integer::intValue).toArray());
+			LOGGER.trace(seq);
+		}
+		refMakespan = Math.max(1, refMakespan);
 		LOGGER.trace("Initializing pheromone");
 		LOGGER.trace(refMakespan);
-		LOGGER.trace(seq);
 		initPheromoneValGlobal = 1 / (numAnts.doubleValue() * refMakespan);
-		for (int i = 0; i < problem.getNumJobs(); i++) {
-			for (int j = i; j < problem.getNumJobs(); j++) {
-				pheromone[i][j] = initPheromoneValGlobal;
-				if (i != j) {
-					pheromone[j][i] = initPheromoneValGlobal;
+		if (algorithm == AntAlgorithm.MMAS) {
+			// Ratio of the bounds proposed by Stutzle and Hoos, with n / 2
+			// choices on average while building a tour
+			int n = problem.getNumJobs();
+			double root = Math.pow(P_BEST, 1.0 / n);
+			minPheromoneRatio = Math.min(1.0, (1.0 - root) / (Math.max(1.0, n / 2.0 - 1.0) * root));
+			maxPheromone = 1.0 / (rho * refMakespan);
+			minPheromone = maxPheromone * minPheromoneRatio;
+			pheromone.fill(maxPheromone);
+		} else {
+			pheromone.fill(initPheromoneValGlobal);
+		}
+	}
+
+	/**
+	 * Iterated insertion local search on the best ant of the iteration. Each
+	 * job is removed and inserted back in its best position, evaluated with
+	 * the Taillard accelerations for the makespan, until no insertion
+	 * improves the objective.
+	 */
+	private void performLocalSearch() {
+		if (!localSearch) {
+			return;
+		}
+		int n = problem.getNumJobs();
+		System.arraycopy(bestAnt.getSchedule().getSequence(), 0, localSearchSequence, 0, n);
+		System.arraycopy(localSearchSequence, 0, localSearchOrder, 0, n);
+		int makespan = bestAnt.getObjectiveValue();
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			for (int job : localSearchOrder) {
+				int position = PfspUtils.indexOf(localSearchSequence, n, job);
+				PfspUtils.removeAt(localSearchSequence, n, position);
+				int bestPosition = insertionEvaluator.bestInsertion(localSearchSequence, n - 1, job);
+				localSearchEvaluations += n;
+				if (insertionEvaluator.getBestValue() < makespan) {
+					makespan = insertionEvaluator.getBestValue();
+					position = bestPosition;
+					improved = true;
 				}
+				PfspUtils.insertAt(localSearchSequence, n - 1, position, job);
 			}
 		}
+		if (makespan < bestAnt.getObjectiveValue()) {
+			bestAnt.getSchedule().load(localSearchSequence, n);
+		}
 	}
 
-	private void performLocalSearch() {
+	/**
+	 * Makespan, or value of the objective, of the best solution found since
+	 * the beginning of the execution
+	 *
+	 * @return
+	 */
+	public int getBestMakespan() {
+		return bestMakespan;
+	}
 
+	/**
+	 * Best sequence found since the beginning of the execution. Shared array,
+	 * must not be modified.
+	 *
+	 * @return
+	 */
+	public int[] getBestSequence() {
+		return bestSequence;
+	}
+
+	/**
+	 * Criterion that stopped the last execution
+	 *
+	 * @return
+	 */
+	public TerminationReason getTerminationReason() {
+		return terminationReason;
+	}
+
+	public int getIterationsExecuted() {
+		return iterationsExecuted;
+	}
+
+	/**
+	 * Listener called after each iteration of {@link #execute()}, null for
+	 * none
+	 *
+	 * @param iterationListener
+	 */
+	public void setIterationListener(IterationListener iterationListener) {
+		this.iterationListener = iterationListener;
+	}
+
+	public PermutationFlowShopProblem getProblem() {
+		return problem;
+	}
+
+	public Objective getObjective() {
+		return objective;
+	}
+
+	/**
+	 * Lambda-branching factor of the pheromone, summary of the convergence of
+	 * the colony. See {@link PheromoneMatrix#branchingFactor(double)}
+	 *
+	 * @return
+	 */
+	public double getBranchingFactor() {
+		return pheromone.branchingFactor(LAMBDA);
 	}
 
 	public static class AntSolverBuilder {
 		private String instance;
+		private PermutationFlowShopProblem problem;
 		private Integer numAnts;
 		private Integer numIterations;
 		private Double rho;
@@ -199,12 +853,40 @@ public class AntSolver {
 		private Double pheromoneDecayCoeficient;
 		private Double q0;
 		private Integer seed;
+		private Integer numThreads;
+		private LocalPheromoneModel localPheromoneModel;
+		private Boolean localSearch;
+		private Integer numNeighbours;
+		private Boolean instanceCache;
+		private Long maxWallTime;
+		private Long maxCpuTime;
+		private Integer targetMakespan;
+		private Integer stagnationLimit;
+		private PheromoneUpdatePolicy updatePolicy;
+		private AntAlgorithm algorithm;
+		private MetricsSink metricsSink;
+		private ConvergenceTrace convergenceTrace;
+		private Boolean nehSeeding;
+		private ConstructionMode constructionMode;
+		private Objective objective;
 
 		public AntSolverBuilder instance(String instance) {
 			this.instance = instance;
 			return this;
 		}
 
+		/**
+		 * Instance already loaded, shared with other solvers, used instead of
+		 * loading the instance file
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntSolverBuilder problem(PermutationFlowShopProblem val) {
+			this.problem = val;
+			return this;
+		}
+
 		public AntSolverBuilder numAnts(Integer val) {
 			this.numAnts = val;
 			return this;
@@ -245,10 +927,133 @@ public class AntSolver {
 			return this;
 		}
 
+		public AntSolverBuilder numThreads(Integer val) {
+			this.numThreads = val;
+			return this;
+		}
+
+		public AntSolverBuilder localPheromoneModel(LocalPheromoneModel val) {
+			this.localPheromoneModel = val;
+			return this;
+		}
+
+		public AntSolverBuilder localSearch(Boolean val) {
+			this.localSearch = val;
+			return this;
+		}
+
+		public AntSolverBuilder numNeighbours(Integer val) {
+			this.numNeighbours = val;
+			return this;
+		}
+
+		public AntSolverBuilder instanceCache(Boolean val) {
+			this.instanceCache = val;
+			return this;
+		}
+
+		/**
+		 * Wall-clock time budget in milliseconds
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntSolverBuilder maxWallTime(Long val) {
+			this.maxWallTime = val;
+			return this;
+		}
+
+		/**
+		 * CPU time budget in milliseconds, adding the time of every thread
+		 * working for the solver
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntSolverBuilder maxCpuTime(Long val) {
+			this.maxCpuTime = val;
+			return this;
+		}
+
+		public AntSolverBuilder targetMakespan(Integer val) {
+			this.targetMakespan = val;
+			return this;
+		}
+
+		/**
+		 * Number of iterations without improvement of the best makespan
+		 * after which the execution stops
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntSolverBuilder stagnationLimit(Integer val) {
+			this.stagnationLimit = val;
+			return this;
+		}
+
+		public AntSolverBuilder updatePolicy(PheromoneUpdatePolicy val) {
+			this.updatePolicy = val;
+			return this;
+		}
+
+		public AntSolverBuilder algorithm(AntAlgorithm val) {
+			this.algorithm = val;
+			return this;
+		}
+
+		/**
+		 * Receives the measures of every iteration. Without sink nothing is
+		 * measured.
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntSolverBuilder metricsSink(MetricsSink val) {
+			this.metricsSink = val;
+			return this;
+		}
+
+		public AntSolverBuilder convergenceTrace(ConvergenceTrace val) {
+			this.convergenceTrace = val;
+			return this;
+		}
+
+		/**
+		 * Starts from the NEH solution: reference of the initial pheromone
+		 * and initial best-so-far solution
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntSolverBuilder nehSeeding(Boolean val) {
+			this.nehSeeding = val;
+			return this;
+		}
+
+		public AntSolverBuilder constructionMode(ConstructionMode val) {
+			this.constructionMode = val;
+			return this;
+		}
+
+		/**
+		 * Criterion minimized by the colony, the makespan by default. The
+		 * target makespan and the results are then values of this objective.
+		 *
+		 * @param val
+		 * @return
+		 */
+		public AntSolverBuilder objective(Objective val) {
+			this.objective = val;
+			return this;
+		}
+
 		public AntSolver build() {
 			LOGGER.trace("Building solver with parameters: " + printableVersion());
-			return new AntSolver(instance, rho, beta, numAnts, numIterations, pheromoneDecayCoeficient, q0, seed,
-					alpha);
+			return new AntSolver(instance, problem, rho, beta, numAnts, numIterations, pheromoneDecayCoeficient, q0, seed,
+					alpha, numThreads, localPheromoneModel, localSearch, numNeighbours, instanceCache, maxWallTime,
+					maxCpuTime, targetMakespan, stagnationLimit, updatePolicy, algorithm, metricsSink,
+					convergenceTrace, nehSeeding, constructionMode, objective);
 		}
 
 		private String printableVersion() {
@@ -1,5 +1,18 @@
 package be.ac.intelligence.swarm;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
@@ -24,15 +37,59 @@ public class App {
 	private static final String NUM_ITERATIONS = "loops";
 	private static final String DECAY_COEFICIENT = "decay";
 	private static final String Q0 = "q0";
+	private static final String THREADS = "threads";
+	private static final String LOCAL_UPDATE = "localupdate";
+	private static final String LOCAL_SEARCH = "localsearch";
+	private static final String NEAREST_NEIGHBOURS = "nn";
+	private static final String INSTANCE_CACHE = "cache";
+	private static final String BATCH = "batch";
+	private static final String SEEDS = "seeds";
+	private static final String WORKERS = "workers";
+	private static final String OUTPUT = "output";
+	private static final String WALL_TIME = "time";
+	private static final String CPU_TIME = "cputime";
+	private static final String TARGET = "target";
+	private static final String STAGNATION = "stagnation";
+	private static final String UPDATE_POLICY = "update";
+	private static final String ALGORITHM = "algorithm";
+	private static final String ISLANDS = "islands";
+	private static final String TOPOLOGY = "topology";
+	private static final String MIGRATION_INTERVAL = "migration";
+	private static final String COORDINATOR = "coordinator";
+	private static final String COLONIES = "colonies";
+	private static final String WORKER = "worker";
+	private static final String METRICS = "metrics";
+	private static final String JMX = "jmx";
+	private static final String TRACE = "trace";
+	private static final String NEH = "neh";
+	private static final String CONSTRUCTION = "construction";
+	private static final String OBJECTIVE = "objective";
+	private static final String DUE_DATES = "duedates";
+	private static final String TIMEOUT = "timeout";
+
+	/**
+	 * Seconds waiting for the other processes of a distributed execution when
+	 * no timeout is given
+	 */
+	private static final int DEFAULT_TIMEOUT = 60;
 
 	public static void main(String[] args) {
-		AntSolver solver = readArguments(args);
-		solver.execute();
+		CommandLine cmd = readArguments(args);
+		if (cmd == null) {
+			return;
+		}
+		if (cmd.getOptionValue(BATCH) != null) {
+			runBatch(cmd);
+		} else if (cmd.getOptionValue(COORDINATOR) != null) {
+			runCoordinator(cmd);
+		} else if (cmd.getOptionValue(WORKER) != null) {
+			runWorker(cmd);
+		} else {
+			runSolver(cmd);
+		}
 	}
 
-	private static AntSolver readArguments(String[] args) {
-		AntSolverBuilder builder = getDefaultParameters();
-
+	private static CommandLine readArguments(String[] args) {
 		Options options = new Options();
 
 		options.addOption(INSTANCE, true, "Path for the instance file of the SCP");
@@ -42,51 +99,295 @@ public class App {
 		options.addOption(EPSILON, true, "Beta parameter used in the pheromone thresholds of the Ant Colony Solver");
 		options.addOption(RHO, true, "Rho parameter used in the probabilities of the Ant Colony Solver");
 		options.addOption(NUMBER_OF_ANTS, true, "Number of ants for the Ant Colony Solver");
-		options.addOption(NUM_ITERATIONS, true, "Maximum number of loops to execute");
+		options.addOption(NUM_ITERATIONS, true, "Maximum number of loops to execute, 0 for no limit");
+		options.addOption(WALL_TIME, true, "Maximum wall-clock time of the execution in seconds");
+		options.addOption(CPU_TIME, true, "Maximum CPU time of the execution in seconds, adding all its threads");
+		options.addOption(TARGET, true, "Makespan, or value of the objective, that stops the execution once reached");
+		options.addOption(STAGNATION, true, "Number of loops without improvement that stops the execution");
 		options.addOption(DECAY_COEFICIENT, true, "Pheromone decay coeficient");
 		options.addOption(Q0, true, "q0 Parameter used in the pseudo-random proportional rule");
+		options.addOption(THREADS, true, "Number of threads used to build the tours of the colony");
+		options.addOption(LOCAL_UPDATE, true,
+				"Local pheromone update of the ants: shared (original ACS, sequential) or per-ant (no local update)");
+		options.addOption(LOCAL_SEARCH, true,
+				"Enables the insertion local search on the best ant: true or false, false by default");
+		options.addOption(NEAREST_NEIGHBOURS, true,
+				"Number of nearest neighbours of the last job considered first by the ants, 0 to disable");
+		options.addOption(INSTANCE_CACHE, true,
+				"Keeps a binary copy of the instance next to it to speed up the following loads: true or false");
+		options.addOption(NEH, true,
+				"Starts from the NEH solution, used for the initial pheromone and as best solution: true or false");
+		options.addOption(CONSTRUCTION, true,
+				"Way the ants add each job: append or insertion (best position of the partial sequence)");
+		options.addOption(OBJECTIVE, true,
+				"Criterion minimized by the colony: makespan, flowtime or weighted-tardiness");
+		options.addOption(DUE_DATES, true,
+				"File with the due date and optional weight of each job, one job per line, for the weighted tardiness");
+		options.addOption(ALGORITHM, true, "Ant colony algorithm: acs or mmas (MAX-MIN Ant System)");
+		options.addOption(UPDATE_POLICY, true,
+				"Solution depositing pheromone after each loop: iteration-best, best-so-far or mixed");
+		options.addOption(ISLANDS, true, "Number of colonies executed in parallel exchanging their best solutions");
+		options.addOption(TOPOLOGY, true,
+				"Islands receiving the best solution of each island: ring or fully-connected");
+		options.addOption(MIGRATION_INTERVAL, true,
+				"Number of loops of each island or worker between two migrations");
+		options.addOption(COORDINATOR, true,
+				"Port, or address:port, on which the coordinator of a distributed execution waits for its workers,"
+						+ " on the loopback interface when no address is given");
+		options.addOption(COLONIES, true, "Number of workers expected by the coordinator");
+		options.addOption(WORKER, true, "Executes a colony reporting to the coordinator given as host:port");
+		options.addOption(TIMEOUT, true,
+				"Seconds the coordinator and the workers wait for each other before giving up, 0 for no limit;"
+						+ " should exceed the time of a migration interval (60 by default)");
+		options.addOption(METRICS, true, "CSV file receiving the measures of every loop");
+		options.addOption(JMX, true, "Publishes the measures of the last loop as an MBean with the given name");
+		options.addOption(TRACE, true,
+				"CSV file receiving each improvement of the best makespan, for a batch directory receiving one file per run");
+		options.addOption(BATCH, true,
+				"Directory or manifest (one path per line) with the instances to solve in the same execution");
+		options.addOption(SEEDS, true, "Comma separated seeds used for each instance of the batch");
+		options.addOption(WORKERS, true, "Number of runs of the batch executed at the same time");
+		options.addOption(OUTPUT, true,
+				"File receiving one line per run of the batch, JSON lines for .jsonl and CSV otherwise");
 
 		CommandLineParser parser = new DefaultParser();
-		CommandLine cmd;
 		try {
-			cmd = parser.parse(options, args);
-			if (cmd.getOptionValue(SEED) != null) {
-				builder = builder.seed(Integer.valueOf(cmd.getOptionValue(SEED)));
-			}
-			if (cmd.getOptionValue(NUMBER_OF_ANTS) != null) {
-				builder = builder.numAnts(Integer.valueOf(cmd.getOptionValue(NUMBER_OF_ANTS)));
-			}
-			if (cmd.getOptionValue(NUM_ITERATIONS) != null) {
-				builder = builder.numIterations(Integer.valueOf(cmd.getOptionValue(NUM_ITERATIONS)));
-			}
-			if (cmd.getOptionValue(BETA) != null) {
-				builder = builder.beta(Double.valueOf(cmd.getOptionValue(BETA)));
-			}
-			if (cmd.getOptionValue(ALPHA) != null) {
-				builder = builder.alpha(Double.valueOf(cmd.getOptionValue(ALPHA)));
-			}
-			if (cmd.getOptionValue(DECAY_COEFICIENT) != null) {
-				builder = builder.pheromoneDecayCoeficient(Double.valueOf(cmd.getOptionValue(DECAY_COEFICIENT)));
-			}
-			if (cmd.getOptionValue(RHO) != null) {
-				builder = builder.rho(Double.valueOf(cmd.getOptionValue(RHO)));
-			}
-			if (cmd.getOptionValue(Q0) != null) {
-				builder = builder.q0(Double.valueOf(cmd.getOptionValue(Q0)));
+			return parser.parse(options, args);
+		} catch (ParseException e) {
+			LOGGER.error(e);
+		}
+		return null;
+	}
+
+	/**
+	 * Applies the parameters given in the command line to the builder
+	 *
+	 * @param builder
+	 * @param cmd
+	 * @return
+	 */
+	private static AntSolverBuilder configure(AntSolverBuilder builder, CommandLine cmd) {
+		if (cmd.getOptionValue(SEED) != null) {
+			builder = builder.seed(Integer.valueOf(cmd.getOptionValue(SEED)));
+		}
+		if (cmd.getOptionValue(NUMBER_OF_ANTS) != null) {
+			builder = builder.numAnts(Integer.valueOf(cmd.getOptionValue(NUMBER_OF_ANTS)));
+		}
+		if (cmd.getOptionValue(NUM_ITERATIONS) != null) {
+			builder = builder.numIterations(Integer.valueOf(cmd.getOptionValue(NUM_ITERATIONS)));
+		}
+		if (cmd.getOptionValue(WALL_TIME) != null) {
+			builder = builder.maxWallTime(toMillis(cmd.getOptionValue(WALL_TIME)));
+		}
+		if (cmd.getOptionValue(CPU_TIME) != null) {
+			builder = builder.maxCpuTime(toMillis(cmd.getOptionValue(CPU_TIME)));
+		}
+		if (cmd.getOptionValue(TARGET) != null) {
+			builder = builder.targetMakespan(Integer.valueOf(cmd.getOptionValue(TARGET)));
+		}
+		if (cmd.getOptionValue(STAGNATION) != null) {
+			builder = builder.stagnationLimit(Integer.valueOf(cmd.getOptionValue(STAGNATION)));
+		}
+		if (cmd.getOptionValue(BETA) != null) {
+			builder = builder.beta(Double.valueOf(cmd.getOptionValue(BETA)));
+		}
+		if (cmd.getOptionValue(ALPHA) != null) {
+			builder = builder.alpha(Double.valueOf(cmd.getOptionValue(ALPHA)));
+		}
+		if (cmd.getOptionValue(DECAY_COEFICIENT) != null) {
+			builder = builder.pheromoneDecayCoeficient(Double.valueOf(cmd.getOptionValue(DECAY_COEFICIENT)));
+		}
+		if (cmd.getOptionValue(RHO) != null) {
+			builder = builder.rho(Double.valueOf(cmd.getOptionValue(RHO)));
+		}
+		if (cmd.getOptionValue(Q0) != null) {
+			builder = builder.q0(Double.valueOf(cmd.getOptionValue(Q0)));
+		}
+		if (cmd.getOptionValue(THREADS) != null) {
+			builder = builder.numThreads(Integer.valueOf(cmd.getOptionValue(THREADS)));
+		}
+		if (cmd.getOptionValue(LOCAL_UPDATE) != null) {
+			builder = builder.localPheromoneModel(LocalPheromoneModel.fromString(cmd.getOptionValue(LOCAL_UPDATE)));
+		}
+		if (cmd.getOptionValue(LOCAL_SEARCH) != null) {
+			builder = builder.localSearch(Boolean.valueOf(cmd.getOptionValue(LOCAL_SEARCH)));
+		}
+		if (cmd.getOptionValue(NEAREST_NEIGHBOURS) != null) {
+			builder = builder.numNeighbours(Integer.valueOf(cmd.getOptionValue(NEAREST_NEIGHBOURS)));
+		}
+		if (cmd.getOptionValue(NEH) != null) {
+			builder = builder.nehSeeding(Boolean.valueOf(cmd.getOptionValue(NEH)));
+		}
+		if (cmd.getOptionValue(CONSTRUCTION) != null) {
+			builder = builder.constructionMode(ConstructionMode.fromString(cmd.getOptionValue(CONSTRUCTION)));
+		}
+		if (cmd.getOptionValue(OBJECTIVE) != null) {
+			builder = builder.objective(getObjective(cmd));
+		}
+		if (cmd.getOptionValue(ALGORITHM) != null) {
+			builder = builder.algorithm(AntAlgorithm.fromString(cmd.getOptionValue(ALGORITHM)));
+		}
+		if (cmd.getOptionValue(UPDATE_POLICY) != null) {
+			builder = builder.updatePolicy(PheromoneUpdatePolicy.fromString(cmd.getOptionValue(UPDATE_POLICY)));
+		}
+		if (cmd.getOptionValue(INSTANCE_CACHE) != null) {
+			builder = builder.instanceCache(Boolean.valueOf(cmd.getOptionValue(INSTANCE_CACHE)));
+		}
+		if (cmd.getOptionValue(INSTANCE) != null) {
+			builder = builder.instance(cmd.getOptionValue(INSTANCE));
+		}
+		return builder;
+	}
+
+	private static Long toMillis(String seconds) {
+		return Math.round(Double.valueOf(seconds) * 1000);
+	}
+
+	/**
+	 * Solves the instance with a single colony or with the island model,
+	 * sending the measures of every loop to the requested sinks
+	 *
+	 * @param cmd
+	 */
+	private static void runSolver(CommandLine cmd) {
+		try (CsvMetricsSink csv = cmd.getOptionValue(METRICS) != null
+				? new CsvMetricsSink(Files.newBufferedWriter(Paths.get(cmd.getOptionValue(METRICS)),
+						StandardCharsets.UTF_8))
+				: null;
+				JmxMetricsSink jmx = cmd.getOptionValue(JMX) != null ? new JmxMetricsSink(cmd.getOptionValue(JMX))
+						: null;
+				ConvergenceTrace trace = cmd.getOptionValue(TRACE) != null
+						? new ConvergenceTrace(Paths.get(cmd.getOptionValue(TRACE)))
+						: null) {
+			MetricsSink sink = csv != null && jmx != null ? MetricsSink.all(csv, jmx) : csv != null ? csv : jmx;
+			if (cmd.getOptionValue(ISLANDS) != null && Integer.valueOf(cmd.getOptionValue(ISLANDS)) > 1) {
+				runIslands(cmd, sink, trace);
+			} else {
+				configure(getDefaultParameters(), cmd).metricsSink(sink).convergenceTrace(trace).build().execute();
 			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Solves the instance with the island model
+	 *
+	 * @param cmd
+	 * @param sink
+	 *            Receives the measures of every island, null for none
+	 * @param trace
+	 *            Receives the improvements of the best makespan of the
+	 *            islands, null for none
+	 */
+	private static void runIslands(CommandLine cmd, MetricsSink sink, ConvergenceTrace trace) {
+		MigrationTopology topology = cmd.getOptionValue(TOPOLOGY) != null
+				? MigrationTopology.fromString(cmd.getOptionValue(TOPOLOGY))
+				: MigrationTopology.RING;
+		Integer seed = cmd.getOptionValue(SEED) != null ? Integer.valueOf(cmd.getOptionValue(SEED)) : 0;
+		new IslandSolver(() -> configure(getDefaultParameters(), cmd).metricsSink(sink).convergenceTrace(trace),
+				Integer.valueOf(cmd.getOptionValue(ISLANDS)), topology, getMigrationInterval(cmd), seed).execute();
+	}
+
+	private static int getMigrationInterval(CommandLine cmd) {
+		return cmd.getOptionValue(MIGRATION_INTERVAL) != null ? Integer.valueOf(cmd.getOptionValue(MIGRATION_INTERVAL))
+				: 10;
+	}
+
+	private static Objective getObjective(CommandLine cmd) {
+		return cmd.getOptionValue(OBJECTIVE) != null
+				? ObjectiveType.fromString(cmd.getOptionValue(OBJECTIVE)).create(
+						cmd.getOptionValue(DUE_DATES) != null ? Paths.get(cmd.getOptionValue(DUE_DATES)) : null)
+				: Objective.MAKESPAN;
+	}
+
+	/**
+	 * Timeout of the sockets of a distributed execution in milliseconds
+	 *
+	 * @param cmd
+	 * @return
+	 */
+	private static int getTimeout(CommandLine cmd) {
+		return 1000 * (cmd.getOptionValue(TIMEOUT) != null ? Integer.valueOf(cmd.getOptionValue(TIMEOUT))
+				: DEFAULT_TIMEOUT);
+	}
+
+	/**
+	 * Waits for the workers of a distributed execution and aggregates their
+	 * solutions, evaluated again when the instance is given
+	 *
+	 * @param cmd
+	 */
+	private static void runCoordinator(CommandLine cmd) {
+		int numWorkers = cmd.getOptionValue(COLONIES) != null ? Integer.valueOf(cmd.getOptionValue(COLONIES)) : 1;
+		String address = cmd.getOptionValue(COORDINATOR);
+		int separator = address.lastIndexOf(':');
+		try (ColonyCoordinator coordinator = separator < 0
+				? new ColonyCoordinator(Integer.valueOf(address), numWorkers, getTimeout(cmd))
+				: new ColonyCoordinator(Integer.valueOf(address.substring(separator + 1)),
+						InetAddress.getByName(address.substring(0, separator)), numWorkers, getTimeout(cmd))) {
 			if (cmd.getOptionValue(INSTANCE) != null) {
-				builder = builder.instance(cmd.getOptionValue(INSTANCE));
+				coordinator.setInstance(new PermutationFlowShopProblem(cmd.getOptionValue(INSTANCE)),
+						getObjective(cmd));
 			}
+			coordinator.run();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
-			return builder.build();
-		} catch (ParseException e) {
-			LOGGER.error(e);
+	/**
+	 * Executes a colony of a distributed execution. Each worker should be
+	 * given a different seed.
+	 *
+	 * @param cmd
+	 */
+	private static void runWorker(CommandLine cmd) {
+		String address = cmd.getOptionValue(WORKER);
+		int separator = address.lastIndexOf(':');
+		if (separator < 0) {
+			throw new IllegalArgumentException("Coordinator expected as host:port, found " + address);
+		}
+		new ColonyWorker(configure(getDefaultParameters(), cmd).build(), address.substring(0, separator),
+				Integer.valueOf(address.substring(separator + 1)), getMigrationInterval(cmd), getTimeout(cmd)).execute();
+	}
+
+	/**
+	 * Solves every instance of the batch with every seed, writing the results
+	 * to the output file or to the standard output
+	 *
+	 * @param cmd
+	 */
+	private static void runBatch(CommandLine cmd) {
+		List<Integer> seeds = cmd.getOptionValue(SEEDS) != null
+				? Stream.of(cmd.getOptionValue(SEEDS).split(",")).map(String::trim).map(Integer::valueOf)
+						.collect(Collectors.toList())
+				: Collections.singletonList(0);
+		int numWorkers = cmd.getOptionValue(WORKERS) != null ? Integer.valueOf(cmd.getOptionValue(WORKERS))
+				: Runtime.getRuntime().availableProcessors();
+		String output = cmd.getOptionValue(OUTPUT);
+		try (Writer writer = output != null ? Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)
+				: new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+			BatchRunner runner = new BatchRunner(() -> configure(getDefaultParameters(), cmd), numWorkers,
+					cmd.getOptionValue(TRACE) != null ? Files.createDirectories(Paths.get(cmd.getOptionValue(TRACE)))
+							: null);
+			runner.run(BatchRunner.listInstances(Paths.get(cmd.getOptionValue(BATCH))), seeds, writer,
+					output != null ? BatchRunner.OutputFormat.fromFileName(output) : BatchRunner.OutputFormat.CSV);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
-		return null;
 	}
 
 	private static AntSolverBuilder getDefaultParameters() {
 		return new AntSolverBuilder().numIterations(100).numAnts(20).seed(0).pheromoneDecayCoeficient(0.1).beta(2.0)
-				.q0(0.9).rho(0.1);
+				.alpha(1.0).q0(0.9).rho(0.1).numThreads(1)
+				.localPheromoneModel(LocalPheromoneModel.PER_ANT).localSearch(false).numNeighbours(0)
+				.instanceCache(false).updatePolicy(PheromoneUpdatePolicy.ITERATION_BEST)
+				.algorithm(AntAlgorithm.ACS).nehSeeding(false).constructionMode(ConstructionMode.APPEND)
+				.objective(Objective.MAKESPAN);
 	}
 }
@@ -0,0 +1,218 @@
+package be.ac.intelligence.swarm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Logger;
+
+import be.ac.intelligence.swarm.AntSolver.AntSolverBuilder;
+
+/**
+ * Solves several instances with several seeds in the same JVM. The runs are
+ * executed by a fixed number of workers and one line is written to the
+ * output for each run as soon as it finishes, so the order of the lines
+ * depends on the duration of the runs.
+ */
+public class BatchRunner {
+
+	private final static Logger LOGGER = Logger.getLogger(BatchRunner.class);
+
+	/**
+	 * Format of the lines written for each run
+	 */
+	public enum OutputFormat {
+		CSV, JSONL;
+
+		/**
+		 * JSON lines for files ending in .jsonl, CSV otherwise
+		 *
+		 * @param fileName
+		 * @return
+		 */
+		public static OutputFormat fromFileName(String fileName) {
+			return fileName.toLowerCase().endsWith(".jsonl") ? JSONL : CSV;
+		}
+	}
+
+	/**
+	 * Provides a new builder with the parameters of the batch for each run
+	 */
+	private final Supplier<AntSolverBuilder> builders;
+
+	private final int numWorkers;
+
+	/**
+	 * Receives the convergence trace of each run, null for none
+	 */
+	private final Path traceDirectory;
+
+	public BatchRunner(Supplier<AntSolverBuilder> builders, int numWorkers) {
+		this(builders, numWorkers, null);
+	}
+
+	/**
+	 * @param builders
+	 * @param numWorkers
+	 * @param traceDirectory
+	 *            Receives the convergence trace of each run, named after the
+	 *            instance and the seed. See {@link ConvergenceTrace}
+	 */
+	public BatchRunner(Supplier<AntSolverBuilder> builders, int numWorkers, Path traceDirectory) {
+		this.builders = builders;
+		this.numWorkers = Math.max(1, numWorkers);
+		this.traceDirectory = traceDirectory;
+	}
+
+	/**
+	 * Instances of the batch. A directory gives all its regular files, except
+	 * hidden files and binary copies of instances, sorted by name. Any other
+	 * file is a manifest listing one instance per line, relative to the
+	 * directory of the manifest. Blank lines and lines starting with # are
+	 * ignored.
+	 *
+	 * @param source
+	 * @return
+	 * @throws IOException
+	 */
+	public static List<Path> listInstances(Path source) throws IOException {
+		if (Files.isDirectory(source)) {
+			try (Stream<Path> files = Files.list(source)) {
+				return files.filter(Files::isRegularFile).filter(file -> {
+					String name = file.getFileName().toString();
+					return !name.startsWith(".") && !name.endsWith(InstanceLoader.CACHE_EXTENSION);
+				}).sorted().collect(Collectors.toList());
+			}
+		}
+		Path directory = source.toAbsolutePath().getParent();
+		List<Path> instances = new ArrayList<>();
+		for (String line : Files.readAllLines(source, StandardCharsets.UTF_8)) {
+			line = line.trim();
+			if (!line.isEmpty() && !line.startsWith("#")) {
+				instances.add(directory.resolve(line));
+			}
+		}
+		return instances;
+	}
+
+	/**
+	 * Solves every instance with every seed. A failed run is logged and
+	 * doesn't stop the rest of the batch.
+	 *
+	 * @param instances
+	 * @param seeds
+	 * @param output
+	 *            Receives a header, for CSV, and one line per successful run.
+	 *            Flushed after each line.
+	 * @param format
+	 * @return Number of failed runs
+	 * @throws InterruptedException
+	 */
+	public int run(List<Path> instances, List<Integer> seeds, Writer output, OutputFormat format)
+			throws InterruptedException {
+		if (format == OutputFormat.CSV) {
+			write(output, "instance,seed,makespan,sequence,time_ms");
+		}
+		AtomicInteger failures = new AtomicInteger();
+		ExecutorService workers = Executors.newFixedThreadPool(numWorkers);
+		try {
+			for (Path instance : instances) {
+				for (Integer seed : seeds) {
+					workers.execute(() -> {
+						try {
+							write(output, solve(instance, seed, format));
+						} catch (RuntimeException e) {
+							failures.incrementAndGet();
+							LOGGER.error("Run of " + instance + " with seed " + seed + " failed", e);
+						}
+					});
+				}
+			}
+		} finally {
+			workers.shutdown();
+		}
+		workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		LOGGER.info("Batch finished: " + instances.size() * seeds.size() + " runs, " + failures.get() + " failed");
+		return failures.get();
+	}
+
+	/**
+	 * Single run of the batch
+	 *
+	 * @param instance
+	 * @param seed
+	 * @param format
+	 * @return Line describing the result of the run
+	 */
+	private String solve(Path instance, Integer seed, OutputFormat format) {
+		long start = System.nanoTime();
+		SolverResult result;
+		if (traceDirectory == null) {
+			result = builders.get().instance(instance.toString()).seed(seed).build().execute();
+		} else {
+			Path traceFile = traceDirectory.resolve(instance.getFileName() + "-" + seed + ".csv");
+			try (ConvergenceTrace trace = new ConvergenceTrace(traceFile)) {
+				result = builders.get().instance(instance.toString()).seed(seed).convergenceTrace(trace).build()
+						.execute();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to write the convergence trace " + traceFile, e);
+			}
+		}
+		long timeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		IntStream sequence = IntStream.of(result.getSequence());
+		if (format == OutputFormat.JSONL) {
+			return "{\"instance\":" + jsonString(instance.toString()) + ",\"seed\":" + seed + ",\"makespan\":"
+					+ result.getMakespan() + ",\"sequence\":"
+					+ sequence.mapToObj(String::valueOf).collect(Collectors.joining(",", "[", "]")) + ",\"time_ms\":"
+					+ timeMillis + "}";
+		}
+		return csvField(instance.toString()) + "," + seed + "," + result.getMakespan() + ","
+				+ sequence.mapToObj(String::valueOf).collect(Collectors.joining(" ")) + "," + timeMillis;
+	}
+
+	private static void write(Writer output, String line) {
+		synchronized (output) {
+			try {
+				output.write(line);
+				output.write(System.lineSeparator());
+				output.flush();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to write the result of the batch", e);
+			}
+		}
+	}
+
+	private static String csvField(String value) {
+		if (value.contains(",") || value.contains("\"")) {
+			return "\"" + value.replace("\"", "\"\"") + "\"";
+		}
+		return value;
+	}
+
+	private static String jsonString(String value) {
+		StringBuilder json = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < 0x20) {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+		return json.append('"').toString();
+	}
+}
@@ -0,0 +1,319 @@
+package be.ac.intelligence.swarm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Coordinator of colonies executed by {@link ColonyWorker}s in other JVMs.
+ * Keeps the best solution reported by the workers and sends it back in the
+ * answer to every report, with the mean branching factor of the colonies
+ * still running, so each worker receives the global best and the convergence
+ * of the whole execution at its next migration. See {@link ColonyProtocol}
+ *
+ * A worker whose connection breaks, or that stays silent longer than the
+ * timeout, is dropped and its last report is kept. The other workers
+ * continue. The values reported by the workers are trusted unless the
+ * coordinator is given the instance, see
+ * {@link #setInstance(PermutationFlowShopProblem, Objective)}
+ */
+public class ColonyCoordinator implements Closeable {
+
+	private final static Logger LOGGER = Logger.getLogger(ColonyCoordinator.class);
+
+	private final ServerSocket server;
+	private final int numWorkers;
+
+	/**
+	 * Maximum time in milliseconds waiting for the workers to connect and
+	 * between two messages of a worker
+	 */
+	private final int timeout;
+
+	/**
+	 * Global state, guarded by this
+	 */
+	private int numJobs;
+	private int fingerprint;
+	private String objectiveName;
+	private int[] bestSequence;
+	private int bestMakespan = Integer.MAX_VALUE;
+	private int bestIteration;
+	private int iterations;
+	private TerminationReason terminationReason;
+	private boolean stop;
+
+	/**
+	 * Last branching factor reported by each worker, NaN when it didn't
+	 * report yet, finished or was dropped. Guarded by this
+	 */
+	private final double[] branchingFactors;
+
+	/**
+	 * Instance and objective evaluating the reported solutions, null when the
+	 * values of the workers are trusted
+	 */
+	private PermutationFlowShopProblem problem;
+	private Objective objective;
+
+	/**
+	 * Opens the server socket on the loopback interface
+	 *
+	 * @param port
+	 *            Zero for any free port, see {@link #getPort()}
+	 * @param numWorkers
+	 *            Number of workers expected
+	 * @param timeout
+	 *            In milliseconds, zero for no limit. Must exceed the time a
+	 *            worker needs for a migration interval
+	 * @throws IOException
+	 */
+	public ColonyCoordinator(int port, int numWorkers, int timeout) throws IOException {
+		this(port, InetAddress.getLoopbackAddress(), numWorkers, timeout);
+	}
+
+	/**
+	 * Opens the server socket on the given address
+	 *
+	 * @param port
+	 * @param address
+	 * @param numWorkers
+	 * @param timeout
+	 * @throws IOException
+	 */
+	public ColonyCoordinator(int port, InetAddress address, int numWorkers, int timeout) throws IOException {
+		if (numWorkers < 1) {
+			throw new IllegalArgumentException("At least one worker is needed");
+		}
+		this.server = new ServerSocket(port, numWorkers, address);
+		this.numWorkers = numWorkers;
+		this.timeout = timeout;
+		this.branchingFactors = new double[numWorkers];
+		Arrays.fill(branchingFactors, Double.NaN);
+	}
+
+	/**
+	 * Lets the coordinator evaluate every reported solution itself instead of
+	 * trusting the value sent by the worker, which is dropped when they
+	 * differ. Only workers solving this instance with this objective are
+	 * accepted. Must be called before {@link #run()}.
+	 *
+	 * @param problem
+	 * @param objective
+	 */
+	public synchronized void setInstance(PermutationFlowShopProblem problem, Objective objective) {
+		this.problem = problem;
+		this.objective = objective;
+		this.numJobs = problem.getNumJobs();
+		this.fingerprint = problem.getFingerprint();
+		this.objectiveName = objective.toString();
+	}
+
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Serves the workers until every one of them finished or was dropped
+	 *
+	 * @return Best solution reported by the workers. The iterations are the
+	 *         sum of the iterations reported by every worker.
+	 * @throws IOException
+	 *             If the server socket fails
+	 * @throws InterruptedException
+	 * @throws IllegalStateException
+	 *             If no worker reported a solution
+	 */
+	public SolverResult run() throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		ExecutorService sessions = Executors.newFixedThreadPool(numWorkers);
+		try {
+			server.setSoTimeout(timeout);
+			for (int i = 0; i < numWorkers; i++) {
+				Socket socket;
+				try {
+					socket = server.accept();
+				} catch (SocketTimeoutException e) {
+					LOGGER.warn("Only " + i + " of " + numWorkers + " workers connected");
+					break;
+				}
+				int worker = i;
+				sessions.execute(() -> serve(worker, socket));
+			}
+		} finally {
+			sessions.shutdown();
+			close();
+		}
+		sessions.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		synchronized (this) {
+			if (bestSequence == null) {
+				throw new IllegalStateException("No worker reported a solution");
+			}
+			LOGGER.info("Best makespan achieved by the workers: " + bestMakespan + " for the sequence: "
+					+ Arrays.toString(bestSequence));
+			return new SolverResult(bestSequence, bestMakespan, iterations, bestIteration, terminationReason,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		}
+	}
+
+	/**
+	 * Session of a worker. Any failure drops the worker.
+	 *
+	 * @param worker
+	 * @param socket
+	 */
+	private void serve(int worker, Socket socket) {
+		int lastIteration = 0;
+		try (Socket connection = socket;
+				DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+			connection.setSoTimeout(timeout);
+			connection.setTcpNoDelay(true);
+			if (in.readInt() != ColonyProtocol.MAGIC) {
+				throw new IOException("Unknown protocol");
+			}
+			int[] sequence = new int[checkInstance(in.readInt(), in.readInt(), in.readUTF())];
+			LOGGER.debug("Worker " + worker + " connected from " + connection.getRemoteSocketAddress());
+			while (true) {
+				byte type = in.readByte();
+				if (type != ColonyProtocol.REPORT && type != ColonyProtocol.DONE) {
+					throw new IOException("Unknown message " + type);
+				}
+				int iteration = in.readInt();
+				double branchingFactor = in.readDouble();
+				int makespan = checkValue(sequence, ColonyProtocol.readSolution(in, sequence));
+				lastIteration = iteration;
+				offer(worker, sequence, makespan, iteration, branchingFactor);
+				if (type == ColonyProtocol.DONE) {
+					finish(TerminationReason.valueOf(in.readUTF()));
+					LOGGER.debug("Worker " + worker + " finished after " + iteration + " iterations: " + makespan);
+					return;
+				}
+				if (LOGGER.isDebugEnabled()) {
+					LOGGER.debug("Worker " + worker + ", iteration " + iteration + ": " + makespan
+							+ ", branching factor " + branchingFactor);
+				}
+				reply(out);
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			LOGGER.warn("Dropping worker " + worker + " after " + lastIteration + " iterations: " + e);
+		} finally {
+			synchronized (this) {
+				iterations += lastIteration;
+				branchingFactors[worker] = Double.NaN;
+			}
+		}
+	}
+
+	/**
+	 * The first worker fixes the instance and the objective of the session,
+	 * the following ones must solve the same
+	 *
+	 * @param workerJobs
+	 * @param workerFingerprint
+	 * @param workerObjective
+	 * @return Number of jobs
+	 * @throws IOException
+	 *             If the worker solves something else
+	 */
+	private synchronized int checkInstance(int workerJobs, int workerFingerprint, String workerObjective)
+			throws IOException {
+		if (numJobs == 0 && workerJobs > 0) {
+			numJobs = workerJobs;
+			fingerprint = workerFingerprint;
+			objectiveName = workerObjective;
+		}
+		if (workerJobs != numJobs) {
+			throw new IOException("Worker solving an instance of " + workerJobs + " jobs instead of " + numJobs);
+		}
+		if (workerFingerprint != fingerprint) {
+			throw new IOException("Worker solving another instance of " + numJobs + " jobs");
+		}
+		if (!workerObjective.equals(objectiveName)) {
+			throw new IOException("Worker minimizing the " + workerObjective + " instead of the " + objectiveName);
+		}
+		return numJobs;
+	}
+
+	/**
+	 * Evaluates the reported solution when the instance is known
+	 *
+	 * @param sequence
+	 * @param reported
+	 *            Value sent by the worker
+	 * @return
+	 * @throws IOException
+	 *             If the value sent by the worker is not the one of the
+	 *             solution
+	 */
+	private int checkValue(int[] sequence, int reported) throws IOException {
+		if (problem == null) {
+			return reported;
+		}
+		int value = objective.evaluate(problem, sequence);
+		if (value != reported) {
+			throw new IOException("Worker reporting " + reported + " for a solution of " + value);
+		}
+		return value;
+	}
+
+	private synchronized void offer(int worker, int[] sequence, int makespan, int iteration,
+			double branchingFactor) {
+		branchingFactors[worker] = branchingFactor;
+		if (makespan < bestMakespan) {
+			bestSequence = sequence.clone();
+			bestMakespan = makespan;
+			bestIteration = iteration;
+		}
+	}
+
+	/**
+	 * Reaching the target or the lower bound in a worker stops the others
+	 *
+	 * @param reason
+	 */
+	private synchronized void finish(TerminationReason reason) {
+		if (reason == TerminationReason.TARGET || reason == TerminationReason.LOWER_BOUND) {
+			stop = true;
+			terminationReason = reason;
+		} else if (terminationReason == null) {
+			terminationReason = reason;
+		}
+	}
+
+	/**
+	 * Mean of the last branching factors of the workers still running
+	 *
+	 * @return NaN when none of them reported
+	 */
+	private synchronized double meanBranchingFactor() {
+		return Arrays.stream(branchingFactors).filter(b -> !Double.isNaN(b)).average().orElse(Double.NaN);
+	}
+
+	private void reply(DataOutputStream out) throws IOException {
+		synchronized (this) {
+			out.writeBoolean(stop);
+			out.writeDouble(meanBranchingFactor());
+			ColonyProtocol.writeSolution(out, bestSequence, bestMakespan);
+		}
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		server.close();
+	}
+}
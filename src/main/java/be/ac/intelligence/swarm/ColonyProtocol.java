@@ -0,0 +1,67 @@
+package be.ac.intelligence.swarm;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Messages exchanged between {@link ColonyWorker} and
+ * {@link ColonyCoordinator}, written with data streams over a TCP connection.
+ *
+ * The worker opens the session with MAGIC, the number of jobs and the
+ * fingerprint of its instance and the name of its objective, which must be
+ * the same for every worker. Then it sends a REPORT every migration interval:
+ * type, iteration, branching factor of its pheromone and best-so-far
+ * solution. The coordinator answers each REPORT with the stop flag, the mean
+ * branching factor of the workers still running and the global best
+ * solution. The session ends with a DONE message, same content as a REPORT
+ * followed by the termination reason, which is not answered.
+ *
+ * The sequences are checked to be permutations of the jobs, but their values
+ * are those computed by the sender. The coordinator only evaluates them again
+ * when it is given the instance, see
+ * {@link ColonyCoordinator#setInstance(PermutationFlowShopProblem, Objective)}
+ */
+final class ColonyProtocol {
+
+	static final int MAGIC = 0x41434f31;
+
+	static final byte REPORT = 1;
+	static final byte DONE = 2;
+
+	private ColonyProtocol() {
+	}
+
+	static void writeSolution(DataOutputStream out, int[] sequence, int makespan) throws IOException {
+		out.writeInt(makespan);
+		for (int job : sequence) {
+			out.writeInt(job);
+		}
+	}
+
+	/**
+	 * Reads a solution of the instance of the session
+	 *
+	 * @param in
+	 * @param sequence
+	 *            Receives the jobs, its length is the number of jobs
+	 * @return Makespan of the solution as reported by the sender
+	 * @throws IOException
+	 *             Also when the sequence is not a permutation of the jobs
+	 */
+	static int readSolution(DataInputStream in, int[] sequence) throws IOException {
+		int makespan = in.readInt();
+		boolean[] seen = new boolean[sequence.length];
+		for (int j = 0; j < sequence.length; j++) {
+			sequence[j] = in.readInt();
+			if (sequence[j] < 0 || sequence[j] >= sequence.length) {
+				throw new IOException("Job out of range: " + sequence[j]);
+			}
+			if (seen[sequence[j]]) {
+				throw new IOException("Job repeated: " + sequence[j]);
+			}
+			seen[sequence[j]] = true;
+		}
+		return makespan;
+	}
+}
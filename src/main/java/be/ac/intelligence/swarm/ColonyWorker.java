@@ -0,0 +1,159 @@
+package be.ac.intelligence.swarm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Executes a colony reporting to a {@link ColonyCoordinator}, possibly in
+ * another JVM. Every migration interval the worker sends its best-so-far
+ * solution and the branching factor of its pheromone, and adopts the global
+ * best solution received in the answer, evaluated again by the colony. The
+ * answer also carries the mean branching factor of the running colonies, see
+ * {@link #getGlobalBranchingFactor()} and {@link ColonyProtocol}
+ *
+ * When the coordinator can't be reached or the connection breaks the colony
+ * continues alone.
+ */
+public class ColonyWorker implements IterationListener {
+
+	private final static Logger LOGGER = Logger.getLogger(ColonyWorker.class);
+
+	private final AntSolver solver;
+	private final String host;
+	private final int port;
+	private final int migrationInterval;
+
+	/**
+	 * Maximum time in milliseconds to connect and to wait for an answer
+	 */
+	private final int timeout;
+
+	private Socket socket;
+	private DataInputStream in;
+	private DataOutputStream out;
+	private int[] globalSequence;
+	private double globalBranchingFactor = Double.NaN;
+
+	public ColonyWorker(AntSolver solver, String host, int port, int migrationInterval, int timeout) {
+		if (migrationInterval < 1) {
+			throw new IllegalArgumentException("The migration interval must be at least one iteration");
+		}
+		this.solver = solver;
+		this.host = host;
+		this.port = port;
+		this.migrationInterval = migrationInterval;
+		this.timeout = timeout;
+		this.globalSequence = new int[solver.getProblem().getNumJobs()];
+	}
+
+	/**
+	 * Executes the colony, connected to the coordinator when possible
+	 *
+	 * @return Best solution found by the colony, including adopted solutions
+	 */
+	public SolverResult execute() {
+		connect();
+		solver.setIterationListener(this);
+		try {
+			SolverResult result = solver.execute();
+			if (socket != null) {
+				try {
+					send(ColonyProtocol.DONE);
+					out.writeUTF(result.getTerminationReason().name());
+					out.flush();
+				} catch (IOException e) {
+					LOGGER.warn("Unable to send the result to the coordinator: " + e);
+				}
+			}
+			return result;
+		} finally {
+			solver.setIterationListener(null);
+			disconnect();
+		}
+	}
+
+	private void connect() {
+		try {
+			socket = new Socket();
+			socket.connect(new InetSocketAddress(host, port), timeout);
+			socket.setSoTimeout(timeout);
+			socket.setTcpNoDelay(true);
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			out.writeInt(ColonyProtocol.MAGIC);
+			out.writeInt(globalSequence.length);
+			out.writeInt(solver.getProblem().getFingerprint());
+			out.writeUTF(solver.getObjective().toString());
+			out.flush();
+			LOGGER.debug("Connected to the coordinator " + host + ":" + port);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to reach the coordinator " + host + ":" + port + ", continuing alone: " + e);
+			disconnect();
+		}
+	}
+
+	@Override
+	public void afterIteration(AntSolver solver) {
+		if (socket == null || solver.getIterationsExecuted() % migrationInterval != 0) {
+			return;
+		}
+		try {
+			send(ColonyProtocol.REPORT);
+			out.flush();
+			boolean stop = in.readBoolean();
+			globalBranchingFactor = in.readDouble();
+			int makespan = ColonyProtocol.readSolution(in, globalSequence);
+			if (solver.acceptSolution(globalSequence)) {
+				LOGGER.debug("Adopted the global best reported with makespan " + makespan);
+			}
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Branching factor of the colony " + solver.getBranchingFactor() + ", of the execution "
+						+ globalBranchingFactor);
+			}
+			if (stop) {
+				solver.requestStop();
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Lost the coordinator, continuing alone: " + e);
+			disconnect();
+		}
+	}
+
+	/**
+	 * Mean branching factor of the colonies of the distributed execution
+	 * received in the last answer of the coordinator, a summary of the
+	 * convergence of the whole execution
+	 *
+	 * @return NaN before the first answer
+	 */
+	public double getGlobalBranchingFactor() {
+		return globalBranchingFactor;
+	}
+
+	private void send(byte type) throws IOException {
+		out.writeByte(type);
+		out.writeInt(solver.getIterationsExecuted());
+		out.writeDouble(solver.getBranchingFactor());
+		ColonyProtocol.writeSolution(out, solver.getBestSequence(), solver.getBestMakespan());
+	}
+
+	private void disconnect() {
+		if (socket != null) {
+			try {
+				socket.close();
+			} catch (IOException ignored) {
+				// Nothing else to do, the colony continues alone
+			}
+		}
+		socket = null;
+		in = null;
+		out = null;
+	}
+}
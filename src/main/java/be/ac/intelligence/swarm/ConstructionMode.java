@@ -0,0 +1,30 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Way the ants add the chosen jobs to their partial sequence
+ */
+public enum ConstructionMode {
+	/**
+	 * Each job is appended after the last one
+	 */
+	APPEND,
+	/**
+	 * Each job is inserted in the position of the partial sequence giving the
+	 * best value of the configured objective, see
+	 * {@link Objective#insertionEvaluator(PermutationFlowShopProblem)}.
+	 * Better tours at a cost of O(nm) per step instead of O(m) for the
+	 * makespan with the Taillard accelerations, up to O(n^2 m) for the other
+	 * objectives.
+	 */
+	INSERTION;
+
+	/**
+	 * Parses the value given in the command line, e.g. "insertion"
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static ConstructionMode fromString(String value) {
+		return valueOf(value.trim().toUpperCase().replace('-', '_'));
+	}
+}
@@ -0,0 +1,165 @@
+package be.ac.intelligence.swarm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+/**
+ * CSV trace of the improvements of the best makespan, to plot the anytime
+ * performance of a run: elapsed time, iteration, evaluations and makespan.
+ *
+ * The solver only queues the values; a background thread formats them and
+ * writes them to the file periodically. A trace can be shared by several
+ * solvers, e.g. the islands of {@link IslandSolver}, in which case only the
+ * improvements of the best makespan of all of them are written. Solvers can
+ * queue their improvements out of order, so the writer drops the ones that
+ * don't improve the last makespan written.
+ */
+public class ConvergenceTrace implements Closeable {
+
+	private final static Logger LOGGER = Logger.getLogger(ConvergenceTrace.class);
+
+	/**
+	 * Milliseconds between two writes of the queued improvements
+	 */
+	private static final long FLUSH_PERIOD = 200;
+
+	private static class Improvement {
+		private final long elapsedTime;
+		private final int iteration;
+		private final long evaluations;
+		private final int makespan;
+
+		Improvement(long elapsedTime, int iteration, long evaluations, int makespan) {
+			this.elapsedTime = elapsedTime;
+			this.iteration = iteration;
+			this.evaluations = evaluations;
+			this.makespan = makespan;
+		}
+	}
+
+	private final Path file;
+	private final FileChannel channel;
+	private final ConcurrentLinkedQueue<Improvement> pending = new ConcurrentLinkedQueue<>();
+	private final ScheduledExecutorService flusher;
+	private final AtomicInteger bestMakespan = new AtomicInteger(Integer.MAX_VALUE);
+
+	/**
+	 * Last makespan written, guarded by this
+	 */
+	private int lastWritten = Integer.MAX_VALUE;
+
+	/**
+	 * First write failure, reported when the trace is closed
+	 */
+	private IOException failure;
+
+	/**
+	 * Creates or truncates the file and writes the header
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public ConvergenceTrace(Path file) throws IOException {
+		this.file = file;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		write("time_ms,iteration,evaluations,makespan" + System.lineSeparator());
+		this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "convergence-trace");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flush, FLUSH_PERIOD, FLUSH_PERIOD, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Queues an improvement of the best makespan. Ignored when it doesn't
+	 * improve the best makespan already traced. Doesn't block.
+	 *
+	 * @param elapsedTime
+	 *            Nanoseconds since the beginning of the execution
+	 * @param iteration
+	 * @param evaluations
+	 *            Evaluations since the beginning of the execution
+	 * @param makespan
+	 */
+	public void improved(long elapsedTime, int iteration, long evaluations, int makespan) {
+		int best;
+		do {
+			best = bestMakespan.get();
+			if (makespan >= best) {
+				return;
+			}
+		} while (!bestMakespan.compareAndSet(best, makespan));
+		pending.add(new Improvement(elapsedTime, iteration, evaluations, makespan));
+	}
+
+	/**
+	 * Writes the queued improvements that improve the last makespan written
+	 */
+	private synchronized void flush() {
+		if (pending.isEmpty() || failure != null) {
+			return;
+		}
+		StringBuilder lines = new StringBuilder();
+		Improvement improvement;
+		while ((improvement = pending.poll()) != null) {
+			if (improvement.makespan >= lastWritten) {
+				continue;
+			}
+			lastWritten = improvement.makespan;
+			lines.append(String.format(Locale.ROOT, "%.3f", improvement.elapsedTime / 1e6)).append(',')
+					.append(improvement.iteration).append(',').append(improvement.evaluations).append(',')
+					.append(improvement.makespan).append(System.lineSeparator());
+		}
+		try {
+			write(lines.toString());
+		} catch (IOException e) {
+			LOGGER.warn("Unable to write the convergence trace " + file + ", ignoring the next improvements", e);
+			failure = e;
+		}
+	}
+
+	private void write(String text) throws IOException {
+		ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+		while (bytes.hasRemaining()) {
+			channel.write(bytes);
+		}
+	}
+
+	/**
+	 * Writes the improvements still queued and closes the file
+	 *
+	 * @throws IOException
+	 *             Also if a previous write failed
+	 */
+	@Override
+	public void close() throws IOException {
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			flush();
+			channel.close();
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+}
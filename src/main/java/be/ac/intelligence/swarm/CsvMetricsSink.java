@@ -0,0 +1,49 @@
+package be.ac.intelligence.swarm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Writes one CSV line per iteration. Times are in nanoseconds.
+ */
+public class CsvMetricsSink implements MetricsSink, Closeable {
+
+	private final Writer output;
+
+	/**
+	 * Writes the header
+	 *
+	 * @param output
+	 *            Closed with the sink
+	 */
+	public CsvMetricsSink(Writer output) {
+		this.output = output;
+		write("iteration,best,mean,worst,best_so_far,construction_ns,local_search_ns,pheromone_update_ns,"
+				+ "evaluations,evaluations_per_second,allocated_bytes");
+	}
+
+	@Override
+	public void record(IterationMetrics metrics) {
+		write(metrics.getIteration() + "," + metrics.getBestMakespan() + "," + metrics.getMeanMakespan() + ","
+				+ metrics.getWorstMakespan() + "," + metrics.getBestSoFarMakespan() + ","
+				+ metrics.getConstructionTime() + "," + metrics.getLocalSearchTime() + ","
+				+ metrics.getPheromoneUpdateTime() + "," + metrics.getEvaluations() + ","
+				+ Math.round(metrics.getEvaluationsPerSecond()) + "," + metrics.getAllocatedBytes());
+	}
+
+	private synchronized void write(String line) {
+		try {
+			output.write(line);
+			output.write(System.lineSeparator());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to write the metrics", e);
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		output.close();
+	}
+}
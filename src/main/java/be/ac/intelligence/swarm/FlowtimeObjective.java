@@ -0,0 +1,41 @@
+package be.ac.intelligence.swarm;
+
+import java.util.stream.IntStream;
+
+/**
+ * Total flowtime: sum of the completion times of every job on the last
+ * machine
+ */
+public class FlowtimeObjective implements Objective {
+
+	@Override
+	public int evaluate(int[] sequence, int length, int offset, int[] completionTimes, int[] partialValues) {
+		int sum = offset > 0 ? partialValues[offset - 1] : 0;
+		for (int j = offset; j < length; j++) {
+			sum += completionTimes[j];
+			partialValues[j] = sum;
+		}
+		return sum;
+	}
+
+	/**
+	 * The first job completes after its total processing time
+	 */
+	@Override
+	public int pairValue(PermutationFlowShopProblem problem, int first, int second) {
+		return problem.getTimeForJobs()[first] + problem.computeMakespan(first, second);
+	}
+
+	/**
+	 * Every job completes at least after its total processing time
+	 */
+	@Override
+	public int lowerBound(PermutationFlowShopProblem problem) {
+		return IntStream.of(problem.getTimeForJobs()).sum();
+	}
+
+	@Override
+	public String toString() {
+		return "total flowtime";
+	}
+}
@@ -0,0 +1,129 @@
+package be.ac.intelligence.swarm;
+
+import java.util.Arrays;
+
+/**
+ * Set of integers from 0 to capacity - 1 stored in a dense array together
+ * with the position of each element, so contains, add, remove and the
+ * access to a uniformly random element run in O(1) without boxing. Removing
+ * an element moves the last one to its position, so the order of the
+ * elements is not kept.
+ */
+public class IndexedIntSet {
+
+	private final int[] elements;
+
+	/**
+	 * Position of each element in the dense array, -1 when absent
+	 */
+	private final int[] positions;
+	private int size;
+
+	/**
+	 * Empty set
+	 *
+	 * @param capacity
+	 */
+	public IndexedIntSet(int capacity) {
+		elements = new int[capacity];
+		positions = new int[capacity];
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Copy Constructor
+	 *
+	 * @param copy
+	 */
+	public IndexedIntSet(IndexedIntSet copy) {
+		elements = copy.elements.clone();
+		positions = copy.positions.clone();
+		size = copy.size;
+	}
+
+	public boolean contains(int element) {
+		return positions[element] >= 0;
+	}
+
+	/**
+	 * @param element
+	 * @return Whether the element was absent
+	 */
+	public boolean add(int element) {
+		if (positions[element] >= 0) {
+			return false;
+		}
+		elements[size] = element;
+		positions[element] = size++;
+		return true;
+	}
+
+	/**
+	 * @param element
+	 * @return Whether the element was present
+	 */
+	public boolean remove(int element) {
+		int position = positions[element];
+		if (position < 0) {
+			return false;
+		}
+		int last = elements[--size];
+		elements[position] = last;
+		positions[last] = position;
+		positions[element] = -1;
+		return true;
+	}
+
+	/**
+	 * Element stored at the given position, from 0 to size - 1
+	 *
+	 * @param position
+	 * @return
+	 */
+	public int get(int position) {
+		return elements[position];
+	}
+
+	/**
+	 * Fills the set with every integer from 0 to capacity - 1, in order
+	 */
+	public void addAll() {
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = i;
+			positions[i] = i;
+		}
+		size = elements.length;
+	}
+
+	/**
+	 * Empties the set. Runs in O(size).
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			positions[elements[i]] = -1;
+		}
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Elements of the set in their current order
+	 *
+	 * @return
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(elements, size);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+}
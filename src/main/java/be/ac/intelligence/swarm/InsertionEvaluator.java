@@ -0,0 +1,31 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Finds the best position of a sequence to insert a job, used by the NEH
+ * heuristic, the insertion construction and the local search
+ */
+public interface InsertionEvaluator {
+
+	/**
+	 * Finds the position of the sequence where the insertion of the job gives
+	 * the lowest value of the objective. Ties are resolved in favour of the
+	 * first position.
+	 *
+	 * @param sequence
+	 *            Sequence not containing the job
+	 * @param length
+	 *            Number of jobs of the sequence to consider
+	 * @param job
+	 *            Job to insert
+	 * @return Position for the job, between 0 and length (inclusive)
+	 */
+	int bestInsertion(int[] sequence, int length, int job);
+
+	/**
+	 * Value of the objective for the best insertion found by the last
+	 * evaluation
+	 *
+	 * @return
+	 */
+	int getBestValue();
+}
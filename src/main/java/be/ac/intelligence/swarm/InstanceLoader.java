@@ -0,0 +1,322 @@
+package be.ac.intelligence.swarm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Loads instances of the permutation flow shop problem written in the
+ * Taillard text format: number of jobs and number of machines followed by
+ * the processing times of each machine (rows) for every job (columns). The
+ * file is mapped in memory and parsed directly from its bytes.
+ *
+ * Optionally keeps a binary copy of the processing times next to the
+ * instance, reused by the following loads while the checksum of the text
+ * file matches the one stored in the copy.
+ */
+public class InstanceLoader {
+
+	private final static Logger LOGGER = Logger.getLogger(InstanceLoader.class);
+
+	/**
+	 * Appended to the name of the instance to obtain the name of its binary
+	 * copy
+	 */
+	public static final String CACHE_EXTENSION = ".bin";
+
+	private static final int MAGIC = 0x50465350;
+	private static final int VERSION = 1;
+
+	/**
+	 * Magic number, version, length and checksum of the text file, number of
+	 * jobs, number of machines and checksum of the processing times
+	 */
+	private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4 + 4;
+
+	private InstanceLoader() {
+	}
+
+	/**
+	 * Loads the processing times of the instance
+	 *
+	 * @param instanceFile
+	 * @param useCache
+	 *            Reads the binary copy of the instance when it's up to date,
+	 *            writes it otherwise
+	 * @return Processing times of each machine (rows) for each job (columns)
+	 * @throws UncheckedIOException
+	 *             If the instance can't be read
+	 * @throws IllegalArgumentException
+	 *             If the instance is malformed
+	 */
+	public static int[][] load(Path instanceFile, boolean useCache) {
+		try (FileChannel channel = FileChannel.open(instanceFile, StandardOpenOption.READ)) {
+			ByteBuffer text = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (!useCache) {
+				return parse(text, instanceFile.toString());
+			}
+			int checksum = checksum(text);
+			Path cacheFile = getCacheFile(instanceFile);
+			int[][] machines = readCache(cacheFile, text.limit(), checksum);
+			if (machines == null) {
+				machines = parse(text, instanceFile.toString());
+				writeCache(cacheFile, text.limit(), checksum, machines);
+			}
+			return machines;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read the instance " + instanceFile, e);
+		}
+	}
+
+	/**
+	 * Binary copy of the given instance
+	 *
+	 * @param instanceFile
+	 * @return
+	 */
+	public static Path getCacheFile(Path instanceFile) {
+		return instanceFile.resolveSibling(instanceFile.getFileName() + CACHE_EXTENSION);
+	}
+
+	/**
+	 * Parses an instance in the Taillard text format. Numbers can be
+	 * separated by any amount of spaces, tabs or line breaks. Nothing but
+	 * white space is accepted after the last processing time.
+	 *
+	 * @param text
+	 * @param name
+	 *            Name of the instance used in the error messages
+	 * @return Processing times of each machine (rows) for each job (columns)
+	 * @throws IllegalArgumentException
+	 *             If the text is malformed
+	 */
+	static int[][] parse(ByteBuffer text, String name) {
+		Parser parser = new Parser(text, name);
+		int numJobs = parser.nextInt("the number of jobs", -1, -1);
+		int numMachines = parser.nextInt("the number of machines", -1, -1);
+		if (numJobs < 1 || numMachines < 1) {
+			throw parser.error("at least one job and one machine are needed");
+		}
+		int[][] machines = new int[numMachines][numJobs];
+		for (int i = 0; i < numMachines; i++) {
+			int[] times = machines[i];
+			for (int j = 0; j < numJobs; j++) {
+				times[j] = parser.nextInt("the processing time", j, i);
+			}
+		}
+		parser.expectEnd();
+		LOGGER.trace("Number of Jobs for the instance: " + numJobs);
+		LOGGER.trace("Number of Machines for the instance: " + numMachines);
+		LOGGER.debug("Instance loaded successfully");
+		return machines;
+	}
+
+	private static int checksum(ByteBuffer buffer) {
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate());
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Reads the binary copy of the instance
+	 *
+	 * @param cacheFile
+	 * @param textLength
+	 * @param textChecksum
+	 * @return Processing times, null when the copy doesn't exist, belongs to
+	 *         a different text or is damaged
+	 * @throws IOException
+	 */
+	private static int[][] readCache(Path cacheFile, long textLength, int textChecksum) throws IOException {
+		if (!Files.isRegularFile(cacheFile)) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_BYTES) {
+				LOGGER.warn("Ignoring truncated instance cache " + cacheFile);
+				return null;
+			}
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				LOGGER.warn("Ignoring unknown instance cache " + cacheFile);
+				return null;
+			}
+			if (buffer.getLong() != textLength || buffer.getInt() != textChecksum) {
+				LOGGER.debug("Instance changed since the cache " + cacheFile + " was written");
+				return null;
+			}
+			int numJobs = buffer.getInt();
+			int numMachines = buffer.getInt();
+			int payloadChecksum = buffer.getInt();
+			if (numJobs < 1 || numMachines < 1 || size != HEADER_BYTES + 4L * numJobs * numMachines
+					|| checksum(buffer) != payloadChecksum) {
+				LOGGER.warn("Ignoring damaged instance cache " + cacheFile);
+				return null;
+			}
+			IntBuffer times = buffer.asIntBuffer();
+			int[][] machines = new int[numMachines][numJobs];
+			for (int i = 0; i < numMachines; i++) {
+				times.get(machines[i]);
+			}
+			LOGGER.debug("Instance loaded from the cache " + cacheFile);
+			return machines;
+		}
+	}
+
+	/**
+	 * Processing times of each machine, one after the other, as they are
+	 * stored in the binary copy
+	 *
+	 * @param machines
+	 * @return
+	 */
+	private static ByteBuffer toPayload(int[][] machines) {
+		ByteBuffer payload = ByteBuffer.allocate(4 * machines.length * machines[0].length);
+		IntBuffer times = payload.asIntBuffer();
+		for (int[] machine : machines) {
+			times.put(machine);
+		}
+		return payload;
+	}
+
+	/**
+	 * Checksum of the processing times, the same stored in the binary copy.
+	 * Identifies the instance whatever the formatting of its text file.
+	 *
+	 * @param machines
+	 * @return
+	 */
+	static int fingerprint(int[][] machines) {
+		return checksum(toPayload(machines));
+	}
+
+	/**
+	 * Writes the binary copy of the instance. The copy is written to a
+	 * temporary file and moved in place, so concurrent loads never see it
+	 * half written. Failures are only logged, the cache is optional.
+	 *
+	 * @param cacheFile
+	 * @param textLength
+	 * @param textChecksum
+	 * @param machines
+	 */
+	private static void writeCache(Path cacheFile, long textLength, int textChecksum, int[][] machines) {
+		int numMachines = machines.length;
+		int numJobs = machines[0].length;
+		ByteBuffer payload = toPayload(machines);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		header.putInt(MAGIC).putInt(VERSION).putLong(textLength).putInt(textChecksum).putInt(numJobs)
+				.putInt(numMachines).putInt(checksum(payload));
+		header.flip();
+		Path temporary = null;
+		try {
+			temporary = Files.createTempFile(cacheFile.toAbsolutePath().getParent(),
+					cacheFile.getFileName().toString(), ".tmp");
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				while (header.hasRemaining() || payload.hasRemaining()) {
+					channel.write(new ByteBuffer[] { header, payload });
+				}
+			}
+			Files.move(temporary, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			LOGGER.debug("Instance cache written to " + cacheFile);
+		} catch (IOException e) {
+			LOGGER.warn("Unable to write the instance cache " + cacheFile, e);
+			if (temporary != null) {
+				try {
+					Files.deleteIfExists(temporary);
+				} catch (IOException ignored) {
+					// Nothing else to do, the cache is optional
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads non-negative integers separated by white space from the bytes of
+	 * the text, keeping the line number for the error messages
+	 */
+	private static class Parser {
+		private final ByteBuffer text;
+		private final String name;
+		private final int limit;
+		private int position;
+		private int line = 1;
+
+		Parser(ByteBuffer text, String name) {
+			this.text = text;
+			this.name = name;
+			this.limit = text.limit();
+		}
+
+		/**
+		 * Reads the next integer. The description of the value is only
+		 * completed with the job and machine, when they are not negative, if
+		 * the value is malformed.
+		 */
+		int nextInt(String expected, int job, int machine) {
+			skipWhiteSpace();
+			if (position == limit) {
+				throw error("missing " + describe(expected, job, machine));
+			}
+			long value = 0;
+			int start = position;
+			while (position < limit) {
+				byte b = text.get(position);
+				if (b < '0' || b > '9') {
+					break;
+				}
+				value = value * 10 + (b - '0');
+				if (value > Integer.MAX_VALUE) {
+					throw error("number too large for " + describe(expected, job, machine));
+				}
+				position++;
+			}
+			if (position == start || position < limit && !isWhiteSpace(text.get(position))) {
+				throw error("expected a non-negative integer for " + describe(expected, job, machine));
+			}
+			return (int) value;
+		}
+
+		private static String describe(String expected, int job, int machine) {
+			return job < 0 ? expected : expected + " of job " + job + " on machine " + machine;
+		}
+
+		void expectEnd() {
+			skipWhiteSpace();
+			if (position < limit) {
+				throw error("unexpected content after the processing times");
+			}
+		}
+
+		private void skipWhiteSpace() {
+			while (position < limit) {
+				byte b = text.get(position);
+				if (!isWhiteSpace(b)) {
+					break;
+				}
+				if (b == '\n') {
+					line++;
+				}
+				position++;
+			}
+		}
+
+		private static boolean isWhiteSpace(byte b) {
+			return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+		}
+
+		IllegalArgumentException error(String message) {
+			return new IllegalArgumentException("Malformed instance " + name + " at line " + line + ": " + message);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package be.ac.intelligence.swarm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+
+import be.ac.intelligence.swarm.AntSolver.AntSolverBuilder;
+
+/**
+ * Island model: several independent colonies, each with its own pheromone and
+ * random stream, executed on their own threads. Every migration interval an
+ * island sends its best-so-far solution to the islands given by the topology
+ * and adopts the best solution received since the previous migration, if it
+ * improves its own.
+ *
+ * Each island has a lock-free mailbox keeping only the best solution sent to
+ * it, so islands never wait for each other. The colonies run at their own
+ * pace, so the results with several islands depend on the scheduling of the
+ * threads even with a fixed seed.
+ */
+public class IslandSolver {
+
+	private final static Logger LOGGER = Logger.getLogger(IslandSolver.class);
+
+	/**
+	 * Solution travelling between islands. Immutable, the mailboxes keep the
+	 * same object.
+	 */
+	private static class Migrant {
+		private final int[] sequence;
+		private final int makespan;
+
+		Migrant(int[] sequence, int makespan) {
+			this.sequence = sequence;
+			this.makespan = makespan;
+		}
+
+		static Migrant better(Migrant current, Migrant candidate) {
+			return current == null || candidate.makespan < current.makespan ? candidate : current;
+		}
+	}
+
+	private final List<AntSolver> islands;
+	private final List<AtomicReference<Migrant>> mailboxes;
+	private final MigrationTopology topology;
+
+	/**
+	 * Number of iterations of each island between two migrations
+	 */
+	private final int migrationInterval;
+
+	/**
+	 * Builds the colonies of the islands. The instance is loaded once and
+	 * shared by every island.
+	 *
+	 * @param builders
+	 *            Provides a new builder with the parameters of the colonies
+	 *            for each island
+	 * @param numIslands
+	 * @param topology
+	 * @param migrationInterval
+	 * @param seed
+	 *            Seed of the stream giving the seed of each island, null for a
+	 *            random one
+	 */
+	public IslandSolver(Supplier<AntSolverBuilder> builders, int numIslands, MigrationTopology topology,
+			int migrationInterval, Integer seed) {
+		if (numIslands < 1) {
+			throw new IllegalArgumentException("At least one island is needed");
+		}
+		if (migrationInterval < 1) {
+			throw new IllegalArgumentException("The migration interval must be at least one iteration");
+		}
+		this.topology = topology;
+		this.migrationInterval = migrationInterval;
+		RandomUtils random = new RandomUtils(seed != null ? seed : System.nanoTime());
+		this.islands = new ArrayList<>(numIslands);
+		this.mailboxes = new ArrayList<>(numIslands);
+		PermutationFlowShopProblem problem = null;
+		for (int i = 0; i < numIslands; i++) {
+			AntSolverBuilder builder = builders.get().seed(random.getRandomInt());
+			AntSolver island = problem != null ? builder.problem(problem).build() : builder.build();
+			problem = island.getProblem();
+			int index = i;
+			island.setIterationListener(solver -> migrate(index, solver));
+			islands.add(island);
+			mailboxes.add(new AtomicReference<>());
+		}
+	}
+
+	/**
+	 * Executes every island until all of them stop. Reaching the target or the
+	 * lower bound in one island stops the others.
+	 *
+	 * @return Best solution found by the islands, the first island winning
+	 *         the ties
+	 */
+	public SolverResult execute() {
+		ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+		List<SolverResult> results = new ArrayList<>(islands.size());
+		try {
+			List<Future<SolverResult>> tasks = new ArrayList<>(islands.size());
+			for (AntSolver island : islands) {
+				tasks.add(executor.submit(solve(island)));
+			}
+			for (Future<SolverResult> task : tasks) {
+				results.add(task.get());
+			}
+		} catch (InterruptedException e) {
+			stopAll();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while executing the islands", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Error executing an island", e.getCause());
+		} finally {
+			executor.shutdown();
+		}
+		SolverResult best = results.get(0);
+		for (int i = 0; i < results.size(); i++) {
+			LOGGER.debug("Island " + i + ": " + results.get(i));
+			if (results.get(i).getMakespan() < best.getMakespan()) {
+				best = results.get(i);
+			}
+		}
+		LOGGER.info("Best makespan achieved by " + islands.size() + " islands: " + best.getMakespan());
+		return best;
+	}
+
+	private Callable<SolverResult> solve(AntSolver island) {
+		return () -> {
+			try {
+				SolverResult result = island.execute();
+				if (result.getTerminationReason() == TerminationReason.TARGET
+						|| result.getTerminationReason() == TerminationReason.LOWER_BOUND) {
+					stopAll();
+				}
+				return result;
+			} catch (RuntimeException e) {
+				stopAll();
+				throw e;
+			}
+		};
+	}
+
+	private void stopAll() {
+		for (AntSolver island : islands) {
+			island.requestStop();
+		}
+	}
+
+	/**
+	 * Called by each island after each of its iterations. Sends the
+	 * best-so-far solution of the island and adopts the best solution waiting
+	 * in its mailbox.
+	 *
+	 * @param index
+	 * @param island
+	 */
+	private void migrate(int index, AntSolver island) {
+		if (island.getIterationsExecuted() % migrationInterval != 0) {
+			return;
+		}
+		Migrant emigrant = new Migrant(island.getBestSequence().clone(), island.getBestMakespan());
+		for (int target : topology.targets(index, islands.size())) {
+			mailboxes.get(target).accumulateAndGet(emigrant, Migrant::better);
+		}
+		Migrant immigrant = mailboxes.get(index).getAndSet(null);
+		if (immigrant != null && island.acceptSolution(immigrant.sequence)) {
+			LOGGER.debug("Island " + index + " adopted a solution with makespan " + immigrant.makespan);
+		}
+	}
+
+	/**
+	 * Colonies of the islands
+	 *
+	 * @return
+	 */
+	public List<AntSolver> getIslands() {
+		return islands;
+	}
+}
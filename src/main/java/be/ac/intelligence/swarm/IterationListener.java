@@ -0,0 +1,15 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Receives the control after each iteration executed by
+ * {@link AntSolver#execute()}, before the termination criteria are checked
+ */
+public interface IterationListener {
+
+	/**
+	 * Called from the thread executing the solver
+	 * 
+	 * @param solver
+	 */
+	void afterIteration(AntSolver solver);
+}
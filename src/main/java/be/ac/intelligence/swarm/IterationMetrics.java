@@ -0,0 +1,115 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Measures of one iteration of the solver. Immutable, sinks can keep it.
+ */
+public class IterationMetrics {
+
+	private final int iteration;
+
+	/**
+	 * Makespans of the ants of the iteration, the best one after the local
+	 * search
+	 */
+	private final int bestMakespan;
+	private final double meanMakespan;
+	private final int worstMakespan;
+
+	private final int bestSoFarMakespan;
+
+	/**
+	 * Time spent in each phase of the iteration, in nanoseconds
+	 */
+	private final long constructionTime;
+	private final long localSearchTime;
+	private final long pheromoneUpdateTime;
+
+	/**
+	 * Complete tours built by the ants plus insertions evaluated by the local
+	 * search
+	 */
+	private final long evaluations;
+
+	/**
+	 * Bytes allocated by the threads working for the solver, -1 when the JVM
+	 * doesn't measure them
+	 */
+	private final long allocatedBytes;
+
+	public IterationMetrics(int iteration, int bestMakespan, double meanMakespan, int worstMakespan,
+			int bestSoFarMakespan, long constructionTime, long localSearchTime, long pheromoneUpdateTime,
+			long evaluations, long allocatedBytes) {
+		this.iteration = iteration;
+		this.bestMakespan = bestMakespan;
+		this.meanMakespan = meanMakespan;
+		this.worstMakespan = worstMakespan;
+		this.bestSoFarMakespan = bestSoFarMakespan;
+		this.constructionTime = constructionTime;
+		this.localSearchTime = localSearchTime;
+		this.pheromoneUpdateTime = pheromoneUpdateTime;
+		this.evaluations = evaluations;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	public int getIteration() {
+		return iteration;
+	}
+
+	public int getBestMakespan() {
+		return bestMakespan;
+	}
+
+	public double getMeanMakespan() {
+		return meanMakespan;
+	}
+
+	public int getWorstMakespan() {
+		return worstMakespan;
+	}
+
+	public int getBestSoFarMakespan() {
+		return bestSoFarMakespan;
+	}
+
+	public long getConstructionTime() {
+		return constructionTime;
+	}
+
+	public long getLocalSearchTime() {
+		return localSearchTime;
+	}
+
+	public long getPheromoneUpdateTime() {
+		return pheromoneUpdateTime;
+	}
+
+	/**
+	 * Duration of the iteration in nanoseconds
+	 *
+	 * @return
+	 */
+	public long getTotalTime() {
+		return constructionTime + localSearchTime + pheromoneUpdateTime;
+	}
+
+	public long getEvaluations() {
+		return evaluations;
+	}
+
+	public double getEvaluationsPerSecond() {
+		long time = getTotalTime();
+		return time > 0 ? evaluations * 1e9 / time : 0.0;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "IterationMetrics [iteration=" + iteration + ", best=" + bestMakespan + ", mean=" + meanMakespan
+				+ ", worst=" + worstMakespan + ", bestSoFar=" + bestSoFarMakespan + ", construction="
+				+ constructionTime + "ns, localSearch=" + localSearchTime + "ns, pheromoneUpdate="
+				+ pheromoneUpdateTime + "ns, evaluations=" + evaluations + ", allocated=" + allocatedBytes + "]";
+	}
+}
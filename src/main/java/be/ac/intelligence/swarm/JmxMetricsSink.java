@@ -0,0 +1,117 @@
+package be.ac.intelligence.swarm;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the measures of the last iteration as an MBean of the platform
+ * server, e.g. for JConsole or VisualVM
+ */
+public class JmxMetricsSink implements MetricsSink, SolverMetricsMXBean, Closeable {
+
+	private final ObjectName name;
+	private volatile IterationMetrics last = new IterationMetrics(0, 0, 0.0, 0, 0, 0, 0, 0, 0, 0);
+	private final LongAdder totalEvaluations = new LongAdder();
+
+	/**
+	 * Registers the MBean be.ac.intelligence.swarm:type=SolverMetrics,name=
+	 * followed by the given name
+	 *
+	 * @param name
+	 * @throws IllegalStateException
+	 *             If the MBean can't be registered, e.g. the name is taken
+	 */
+	public JmxMetricsSink(String name) {
+		try {
+			this.name = new ObjectName("be.ac.intelligence.swarm:type=SolverMetrics,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, this.name);
+		} catch (JMException e) {
+			throw new IllegalStateException("Unable to register the metrics MBean " + name, e);
+		}
+	}
+
+	@Override
+	public void record(IterationMetrics metrics) {
+		last = metrics;
+		totalEvaluations.add(metrics.getEvaluations());
+	}
+
+	public ObjectName getName() {
+		return name;
+	}
+
+	@Override
+	public int getIteration() {
+		return last.getIteration();
+	}
+
+	@Override
+	public int getBestMakespan() {
+		return last.getBestMakespan();
+	}
+
+	@Override
+	public double getMeanMakespan() {
+		return last.getMeanMakespan();
+	}
+
+	@Override
+	public int getWorstMakespan() {
+		return last.getWorstMakespan();
+	}
+
+	@Override
+	public int getBestSoFarMakespan() {
+		return last.getBestSoFarMakespan();
+	}
+
+	@Override
+	public long getConstructionTime() {
+		return last.getConstructionTime();
+	}
+
+	@Override
+	public long getLocalSearchTime() {
+		return last.getLocalSearchTime();
+	}
+
+	@Override
+	public long getPheromoneUpdateTime() {
+		return last.getPheromoneUpdateTime();
+	}
+
+	@Override
+	public double getEvaluationsPerSecond() {
+		return last.getEvaluationsPerSecond();
+	}
+
+	@Override
+	public long getAllocatedBytes() {
+		return last.getAllocatedBytes();
+	}
+
+	@Override
+	public long getTotalEvaluations() {
+		return totalEvaluations.sum();
+	}
+
+	/**
+	 * Unregisters the MBean
+	 */
+	@Override
+	public void close() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (JMException e) {
+			throw new IllegalStateException("Unable to unregister the metrics MBean " + name, e);
+		}
+	}
+}
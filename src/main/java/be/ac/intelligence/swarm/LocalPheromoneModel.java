@@ -0,0 +1,32 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Defines which pheromone matrix is modified by the local pheromone update
+ * done by the ants while building their tours.
+ */
+public enum LocalPheromoneModel {
+	/**
+	 * Ants update the pheromone matrix of the colony, pulling the visited
+	 * values towards the initial pheromone level as in the original ACS. The
+	 * tours depend on the order in which the ants are executed, so the colony
+	 * is always built sequentially.
+	 */
+	SHARED,
+	/**
+	 * No local update: a copy of the colony pheromone pulled towards the
+	 * colony values would stay unchanged, so the ants only read the pheromone
+	 * of the colony. Ants are independent from each other and can be
+	 * executed concurrently.
+	 */
+	PER_ANT;
+
+	/**
+	 * Parses the value given in the command line, e.g. "shared" or "per-ant"
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public static LocalPheromoneModel fromString(String value) {
+		return valueOf(value.trim().toUpperCase().replace('-', '_'));
+	}
+}
@@ -0,0 +1,33 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Completion time of the last job on the last machine. The insertions are
+ * evaluated with the Taillard accelerations.
+ */
+public class MakespanObjective implements Objective {
+
+	@Override
+	public int evaluate(int[] sequence, int length, int offset, int[] completionTimes, int[] partialValues) {
+		return length > 0 ? completionTimes[length - 1] : 0;
+	}
+
+	@Override
+	public int pairValue(PermutationFlowShopProblem problem, int first, int second) {
+		return problem.computeMakespan(first, second);
+	}
+
+	@Override
+	public int lowerBound(PermutationFlowShopProblem problem) {
+		return problem.getLowerBound();
+	}
+
+	@Override
+	public InsertionEvaluator insertionEvaluator(PermutationFlowShopProblem problem) {
+		return new TaillardEvaluator(problem);
+	}
+
+	@Override
+	public String toString() {
+		return "makespan";
+	}
+}
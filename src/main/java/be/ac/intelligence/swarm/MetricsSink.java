@@ -0,0 +1,26 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Receives the measures of every iteration of the solver. Called from the
+ * thread executing the solver; a sink shared by several solvers must be
+ * thread-safe.
+ */
+public interface MetricsSink {
+
+	void record(IterationMetrics metrics);
+
+	/**
+	 * Sink forwarding the measures to every given sink
+	 *
+	 * @param sinks
+	 * @return
+	 */
+	static MetricsSink all(MetricsSink... sinks) {
+		MetricsSink[] copy = sinks.clone();
+		return metrics -> {
+			for (MetricsSink sink : copy) {
+				sink.record(metrics);
+			}
+		};
+	}
+}
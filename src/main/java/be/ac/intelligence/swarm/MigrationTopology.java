@@ -0,0 +1,46 @@
+package be.ac.intelligence.swarm;
+
+import java.util.stream.IntStream;
+
+/**
+ * Islands receiving the best solution of each island of the island model
+ */
+public enum MigrationTopology {
+	/**
+	 * Each island sends its solution to the next one, the last one to the
+	 * first
+	 */
+	RING,
+	/**
+	 * Each island sends its solution to every other island
+	 */
+	FULLY_CONNECTED;
+
+	/**
+	 * Islands receiving the solutions of the given island
+	 * 
+	 * @param island
+	 * @param numIslands
+	 * @return
+	 */
+	public int[] targets(int island, int numIslands) {
+		if (numIslands < 2) {
+			return new int[0];
+		}
+		if (this == RING) {
+			return new int[] { (island + 1) % numIslands };
+		}
+		return IntStream.range(0, numIslands).filter(target -> target != island).toArray();
+	}
+
+	/**
+	 * Parses the value given in the command line, e.g. "ring" or
+	 * "fully-connected"
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public static MigrationTopology fromString(String value) {
+		return valueOf(value.trim().toUpperCase().replace('-', '_'));
+	}
+}
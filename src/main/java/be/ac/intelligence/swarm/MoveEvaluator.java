@@ -0,0 +1,201 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Evaluates swap and insertion moves on a complete sequence without
+ * recomputing its whole makespan. Keeps the forward (heads) and backward
+ * (tails) completion times of the loaded sequence: the positions before a
+ * move keep their heads and the positions after it keep their tails, so only
+ * the segment between the two positions of the move is recomputed, joining
+ * both matrices in O((|i - j| + 1) m).
+ *
+ * Keeps its own buffers, so each thread needs its own evaluator.
+ */
+public class MoveEvaluator {
+
+	private final int numMachines;
+
+	/**
+	 * Processing times of each job (rows) in each machine (columns)
+	 */
+	private final int[][] jobs;
+
+	/**
+	 * Heads and tails of the loaded sequence. See
+	 * {@link TaillardEvaluator#computeHeads(int[][], int[], int, int[][])}
+	 * and {@link TaillardEvaluator#computeTails(int[][], int[], int, int[][])}
+	 */
+	private final int[][] heads;
+	private final int[][] tails;
+
+	/**
+	 * Completion times of the segment being recomputed
+	 */
+	private final int[] segment;
+
+	/**
+	 * Copy of the loaded sequence and buffer for the sequence without the
+	 * moved job used by the bulk insertion evaluation
+	 */
+	private final int[] sequence;
+	private final int[] reducedSequence;
+
+	private final TaillardEvaluator taillardEvaluator;
+
+	private int length;
+
+	private int makespan;
+
+	public MoveEvaluator(PermutationFlowShopProblem problem) {
+		this.numMachines = problem.getNumMachines();
+		this.jobs = problem.getJobs();
+		this.heads = new int[problem.getNumJobs() + 1][numMachines];
+		this.tails = new int[problem.getNumJobs() + 1][numMachines];
+		this.segment = new int[numMachines];
+		this.sequence = new int[problem.getNumJobs()];
+		this.reducedSequence = new int[problem.getNumJobs()];
+		this.taillardEvaluator = new TaillardEvaluator(problem);
+	}
+
+	/**
+	 * Loads the sequence to evaluate the moves on, computing its heads and
+	 * tails
+	 *
+	 * @param jobsSequence
+	 * @param length
+	 * @return Makespan of the sequence
+	 */
+	public int load(int[] jobsSequence, int length) {
+		this.length = length;
+		System.arraycopy(jobsSequence, 0, sequence, 0, length);
+		TaillardEvaluator.computeHeads(jobs, sequence, length, heads);
+		TaillardEvaluator.computeTails(jobs, sequence, length, tails);
+		makespan = 0;
+		for (int i = 0; i < numMachines; i++) {
+			if (heads[length][i] > makespan) {
+				makespan = heads[length][i];
+			}
+		}
+		return makespan;
+	}
+
+	/**
+	 * Makespan of the loaded sequence after swapping the jobs in positions i
+	 * and j
+	 *
+	 * @param i
+	 * @param j
+	 * @return
+	 */
+	public int evaluateSwap(int i, int j) {
+		if (i == j) {
+			return makespan;
+		}
+		int from = Math.min(i, j);
+		int to = Math.max(i, j);
+		startSegment(from);
+		addToSegment(sequence[to]);
+		for (int p = from + 1; p < to; p++) {
+			addToSegment(sequence[p]);
+		}
+		addToSegment(sequence[from]);
+		return closeSegment(to);
+	}
+
+	/**
+	 * Makespan of the loaded sequence after removing the job in position from
+	 * and inserting it so it ends up in position to
+	 *
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	public int evaluateMove(int from, int to) {
+		if (from == to) {
+			return makespan;
+		}
+		if (from < to) {
+			startSegment(from);
+			for (int p = from + 1; p <= to; p++) {
+				addToSegment(sequence[p]);
+			}
+			addToSegment(sequence[from]);
+			return closeSegment(to);
+		}
+		startSegment(to);
+		addToSegment(sequence[from]);
+		for (int p = to; p < from; p++) {
+			addToSegment(sequence[p]);
+		}
+		return closeSegment(from);
+	}
+
+	/**
+	 * Scores every swap of the job in position i with the rest of the
+	 * positions
+	 *
+	 * @param i
+	 * @param makespans
+	 *            Receives in position j the makespan after swapping i and j
+	 */
+	public void evaluateSwapNeighbourhood(int i, int[] makespans) {
+		for (int j = 0; j < length; j++) {
+			makespans[j] = evaluateSwap(i, j);
+		}
+	}
+
+	/**
+	 * Scores every insertion of the job in position from, evaluated all at
+	 * once with the Taillard accelerations in O(nm)
+	 *
+	 * @param from
+	 * @param makespans
+	 *            Receives in position k the makespan after moving the job to
+	 *            position k
+	 * @return Best position for the job, the first one in case of ties
+	 */
+	public int evaluateInsertNeighbourhood(int from, int[] makespans) {
+		System.arraycopy(sequence, 0, reducedSequence, 0, length);
+		PfspUtils.removeAt(reducedSequence, length, from);
+		int best = taillardEvaluator.bestInsertion(reducedSequence, length - 1, sequence[from]);
+		System.arraycopy(taillardEvaluator.getInsertionMakespans(), 0, makespans, 0, length);
+		return best;
+	}
+
+	private void startSegment(int position) {
+		System.arraycopy(heads[position], 0, segment, 0, numMachines);
+	}
+
+	private void addToSegment(int job) {
+		int[] times = jobs[job];
+		int previousMachine = 0;
+		for (int i = 0; i < numMachines; i++) {
+			previousMachine = (previousMachine > segment[i] ? previousMachine : segment[i]) + times[i];
+			segment[i] = previousMachine;
+		}
+	}
+
+	/**
+	 * Joins the completion times of the segment ending at the given position
+	 * with the tails of the rest of the sequence
+	 */
+	private int closeSegment(int position) {
+		int[] tail = tails[position + 1];
+		int result = 0;
+		for (int i = 0; i < numMachines; i++) {
+			if (segment[i] + tail[i] > result) {
+				result = segment[i] + tail[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Makespan of the loaded sequence
+	 *
+	 * @return
+	 */
+	public int getMakespan() {
+		return makespan;
+	}
+
+}
@@ -0,0 +1,44 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Constructive heuristic of Nawaz, Enscore and Ham: the jobs are taken by
+ * decreasing total processing time and each one is inserted in the position
+ * of the partial sequence giving the lowest value of the objective. For the
+ * makespan, with the Taillard accelerations, the whole construction runs in
+ * O(n^2 m).
+ */
+public class NehHeuristic {
+
+	private NehHeuristic() {
+	}
+
+	/**
+	 * Builds the NEH sequence of the instance
+	 *
+	 * @param problem
+	 * @param evaluator
+	 *            Evaluator of the instance for the objective, its buffers are
+	 *            overwritten
+	 * @return Complete sequence of jobs
+	 */
+	public static int[] solve(PermutationFlowShopProblem problem, InsertionEvaluator evaluator) {
+		int[] order = problem.getJobsByTime();
+		int[] sequence = new int[problem.getNumJobs()];
+		for (int k = 0; k < order.length; k++) {
+			int position = evaluator.bestInsertion(sequence, k, order[k]);
+			PfspUtils.insertAt(sequence, k, position, order[k]);
+		}
+		return sequence;
+	}
+
+	/**
+	 * Builds the NEH sequence of the instance for the makespan with a new
+	 * evaluator
+	 *
+	 * @param problem
+	 * @return
+	 */
+	public static int[] solve(PermutationFlowShopProblem problem) {
+		return solve(problem, new TaillardEvaluator(problem));
+	}
+}
@@ -0,0 +1,106 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Criterion minimized by the colony. Every objective is computed from the
+ * completion times of the jobs on the last machine, the last row of the
+ * makespan matrix kept by {@link PfspSchedule}, so evaluating it costs no
+ * extra pass over the machines. Objectives adding a value per job keep the
+ * partial value of each position, so a sequence modified from a position is
+ * only re-evaluated from it, like the makespan matrix.
+ *
+ * Implementations are immutable and shared by the whole colony.
+ */
+public interface Objective {
+
+	/**
+	 * Default objective of the colony
+	 */
+	Objective MAKESPAN = new MakespanObjective();
+
+	/**
+	 * Value of the first length jobs of the sequence
+	 *
+	 * @param sequence
+	 * @param length
+	 * @param offset
+	 *            Starting position of the computation. The partial values
+	 *            before this position must correspond to the given sequence.
+	 * @param completionTimes
+	 *            Completion time of the job in each position on the last
+	 *            machine
+	 * @param partialValues
+	 *            Value of the sequence up to each position, updated from the
+	 *            offset
+	 * @return
+	 */
+	int evaluate(int[] sequence, int length, int offset, int[] completionTimes, int[] partialValues);
+
+	/**
+	 * Value of the sequence formed by the two given jobs, the distance used
+	 * by the heuristic information
+	 *
+	 * @param problem
+	 * @param first
+	 * @param second
+	 * @return
+	 */
+	int pairValue(PermutationFlowShopProblem problem, int first, int second);
+
+	/**
+	 * Lower bound of the value of any sequence of the instance. A sequence
+	 * reaching it is optimal.
+	 *
+	 * @param problem
+	 * @return
+	 */
+	int lowerBound(PermutationFlowShopProblem problem);
+
+	/**
+	 * Checks that the objective can evaluate the sequences of the instance
+	 *
+	 * @param problem
+	 * @throws IllegalArgumentException
+	 *             If it can't
+	 */
+	default void validate(PermutationFlowShopProblem problem) {
+	}
+
+	/**
+	 * Heuristic information of scheduling the second job right after the
+	 * first one
+	 *
+	 * @param problem
+	 * @param first
+	 * @param second
+	 * @return
+	 */
+	default double heuristic(PermutationFlowShopProblem problem, int first, int second) {
+		return 1.0 / Math.max(1, pairValue(problem, first, second));
+	}
+
+	/**
+	 * New evaluator of the insertion positions of a job for this objective.
+	 * Keeps its own buffers, so each thread needs its own evaluator.
+	 *
+	 * @param problem
+	 * @return
+	 */
+	default InsertionEvaluator insertionEvaluator(PermutationFlowShopProblem problem) {
+		return new ObjectiveInsertionEvaluator(problem, this);
+	}
+
+	/**
+	 * Value of a complete sequence. Allocates its own buffers, meant for
+	 * one-off evaluations.
+	 *
+	 * @param problem
+	 * @param sequence
+	 * @return
+	 */
+	default int evaluate(PermutationFlowShopProblem problem, int[] sequence) {
+		int[][] makespanMatrix = new int[problem.getNumMachines()][sequence.length];
+		problem.computeMakespan(sequence, sequence.length, 0, makespanMatrix);
+		return evaluate(sequence, sequence.length, 0, makespanMatrix[problem.getNumMachines() - 1],
+				new int[sequence.length]);
+	}
+}
@@ -0,0 +1,65 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Evaluates the insertion of a job in every position of a sequence for any
+ * objective. The positions are tried from the last one to the first one, so
+ * the completion times and partial values before the current position are
+ * still those of the sequence and each insertion is only evaluated from its
+ * position. O(n^2 m) in the worst case for the whole set of positions, the
+ * Taillard accelerations only apply to the makespan.
+ *
+ * Keeps its own buffers, so each thread needs its own evaluator.
+ */
+public class ObjectiveInsertionEvaluator implements InsertionEvaluator {
+
+	private final PermutationFlowShopProblem problem;
+	private final Objective objective;
+
+	/**
+	 * Sequence with the job inserted in the current position, with its
+	 * completion times and partial values
+	 */
+	private final int[] candidate;
+	private final int[][] makespanMatrix;
+	private final int[] partialValues;
+
+	private int bestValue;
+
+	public ObjectiveInsertionEvaluator(PermutationFlowShopProblem problem, Objective objective) {
+		this.problem = problem;
+		this.objective = objective;
+		this.candidate = new int[problem.getNumJobs()];
+		this.makespanMatrix = new int[problem.getNumMachines()][problem.getNumJobs()];
+		this.partialValues = new int[problem.getNumJobs()];
+	}
+
+	@Override
+	public int bestInsertion(int[] sequence, int length, int job) {
+		System.arraycopy(sequence, 0, candidate, 0, length);
+		candidate[length] = job;
+		int[] completionTimes = makespanMatrix[problem.getNumMachines() - 1];
+		int offset = 0;
+		int bestPosition = length;
+		bestValue = Integer.MAX_VALUE;
+		for (int k = length; k >= 0; k--) {
+			if (k < length) {
+				// Moves the job one position to the front
+				candidate[k + 1] = candidate[k];
+				candidate[k] = job;
+				offset = k;
+			}
+			problem.computeMakespan(candidate, length + 1, offset, makespanMatrix);
+			int value = objective.evaluate(candidate, length + 1, offset, completionTimes, partialValues);
+			if (value <= bestValue) {
+				bestValue = value;
+				bestPosition = k;
+			}
+		}
+		return bestPosition;
+	}
+
+	@Override
+	public int getBestValue() {
+		return bestValue;
+	}
+}
@@ -0,0 +1,56 @@
+package be.ac.intelligence.swarm;
+
+import java.nio.file.Path;
+
+/**
+ * Objectives available in the command line
+ */
+public enum ObjectiveType {
+	/**
+	 * See {@link MakespanObjective}
+	 */
+	MAKESPAN,
+	/**
+	 * See {@link FlowtimeObjective}
+	 */
+	FLOWTIME,
+	/**
+	 * See {@link WeightedTardinessObjective}, needs the due dates of the jobs
+	 */
+	WEIGHTED_TARDINESS;
+
+	/**
+	 * Creates the objective
+	 *
+	 * @param dueDates
+	 *            File with the due dates and weights of the jobs, only for
+	 *            the weighted tardiness
+	 * @return
+	 * @throws IllegalArgumentException
+	 *             If the due dates are needed and missing
+	 */
+	public Objective create(Path dueDates) {
+		switch (this) {
+		case FLOWTIME:
+			return new FlowtimeObjective();
+		case WEIGHTED_TARDINESS:
+			if (dueDates == null) {
+				throw new IllegalArgumentException("The weighted tardiness needs the due dates of the jobs");
+			}
+			return WeightedTardinessObjective.load(dueDates);
+		default:
+			return Objective.MAKESPAN;
+		}
+	}
+
+	/**
+	 * Parses the value given in the command line, e.g. "flowtime" or
+	 * "weighted-tardiness"
+	 *
+	 * @param value
+	 * @return
+	 */
+	public static ObjectiveType fromString(String value) {
+		return valueOf(value.trim().toUpperCase().replace('-', '_'));
+	}
+}
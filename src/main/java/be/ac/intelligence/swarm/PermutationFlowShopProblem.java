@@ -1,324 +1,318 @@
 package be.ac.intelligence.swarm;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.Serializable;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.OptionalDouble;
-import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.log4j.Logger;
 
-public class PermutationFlowShopProblem implements Serializable {
+/**
+ * Instance of the permutation flow shop problem. Contains only the read-only
+ * data of the instance so a single object can be shared by all the ants of
+ * the colony. The state of a solution under construction is kept in
+ * {@link PfspSchedule}.
+ */
+public class PermutationFlowShopProblem {
 
-	/**
-	 * 
-	 */
-	private static final long serialVersionUID = -71058095287208590L;
-
-	private final static Logger LOGGER = Logger.getLogger(Ant.class);
+	private final static Logger LOGGER = Logger.getLogger(PermutationFlowShopProblem.class);
 
 	/**
 	 * Number of Machines
 	 */
-	private Integer numMachines;
+	private int numMachines;
 
 	/**
 	 * Number of Jobs
 	 */
-	private Integer numJobs;
-	/**
-	 * Contains the solution sequence of the way the jobs have to be approached
-	 */
-	private List<Integer> solution;
-
-	private Integer makespan;
-
-	/**
-	 * Contains the end-times for each of the job in each of the machines.
-	 * Matrix used to allow recalculating the makespan from an intermediate
-	 * point without going through all the steps from the first machine
-	 */
-	private Integer[][] makespanMatrix;
+	private int numJobs;
 
 	/**
 	 * Main matrix of the problem containing the times for each job in the rows
 	 * of the data structure
 	 */
-	private Integer[][] jobs;
+	private int[][] jobs;
 	/**
 	 * Same information of the jobs matrix just transposed. Data structure
 	 * created just for easier understanding of some computations according to
 	 * what was thought on the paper while designing the solution. The solution
 	 * can be written only using the jobs matrix.
 	 */
-	private Integer[][] machines;
+	private int[][] machines;
 
 	/**
-	 * List of unscheduled jobs whose total processing times are no less than
-	 * the average value of all scheduled jobs.
+	 * Total time for each job
 	 */
-	private ArrayList<Integer> candidateList;
+	private int[] timeForJobs;
 
 	/**
-	 * List of scheduled jobs
+	 * Makespan of every sequence of two jobs (i, j) stored as a flat row-major
+	 * array. See {@link PfspUtils#index(int, int, int)}
 	 */
-	private Set<Integer> scheduledJobs;
+	private int[] pairMakespans;
 
 	/**
-	 * List of unscheduled jobs
+	 * Jobs sorted by decreasing total processing time, ties broken by job
+	 * number
 	 */
-	private Set<Integer> unscheduledJobs;
+	private int[] jobsByTime;
 
 	/**
-	 * Total time for each job
+	 * Lower bound of the makespan of any sequence
 	 */
-	private List<Integer> timeForJobs;
+	private int lowerBound;
 
-	public PermutationFlowShopProblem(String instanceFile) {
-		// Initialize variables of the instance
-		readInstance(instanceFile);
-		makespanMatrix = new Integer[numMachines][];
-		timeForJobs = getListOfTimesForJobs();
-		scheduledJobs = new HashSet<>();
-		unscheduledJobs = IntStream.range(0, numJobs).boxed().collect(Collectors.toSet());
-		solution = new ArrayList<>();
-		LOGGER.trace("Total times for the jobs: " + getListOfTimesForJobs());
-
-	}
+	/**
+	 * Checksum of the processing times, see
+	 * {@link InstanceLoader#fingerprint(int[][])}
+	 */
+	private int fingerprint;
 
-	@SuppressWarnings("unchecked")
-	public PermutationFlowShopProblem(PermutationFlowShopProblem copy) {
-		super();
-		this.numMachines = copy.getNumMachines();
-		this.numJobs = copy.getNumJobs();
-		this.solution = copy.getSolution() != null ? (List<Integer>) ((ArrayList<Integer>) copy.getSolution()).clone()
-				: null;
-		this.makespan = copy.getMakespan();
-		this.makespanMatrix = PfspUtils.deepCopy(copy.getMakespanMatrix());
-		this.jobs = PfspUtils.deepCopy(copy.getJobs());
-		this.machines = PfspUtils.deepCopy(copy.getMachines());
-		this.candidateList = copy.getCandidateList() != null
-				? (ArrayList<Integer>) ((ArrayList<Integer>) copy.getCandidateList()).clone() : null;
-		this.scheduledJobs = copy.getScheduledJobs() != null
-				? (Set<Integer>) ((HashSet<Integer>) copy.getScheduledJobs()).clone() : null;
-		this.unscheduledJobs = copy.getUnscheduledJobs() != null
-				? (Set<Integer>) ((HashSet<Integer>) copy.getUnscheduledJobs()).clone() : null;
-		this.timeForJobs = copy.getTimeForJobs() != null
-				? (List<Integer>) ((ArrayList<Integer>) copy.getTimeForJobs()).clone() : null;
+	/**
+	 * Loads the instance from a file in the Taillard text format
+	 *
+	 * @param instanceFile
+	 * @throws java.io.UncheckedIOException
+	 *             If the file can't be read
+	 * @throws IllegalArgumentException
+	 *             If the file is malformed
+	 */
+	public PermutationFlowShopProblem(String instanceFile) {
+		this(instanceFile, false);
 	}
 
-	private void readInstance(String instanceFile) {
-		BufferedReader reader;
-		try {
-			reader = Files.newBufferedReader(Paths.get(instanceFile), Charset.defaultCharset());
-
-			// Using values of the first line
-			String[] splitLine = reader.readLine().trim().replace("  ", " ").split(" ");
-			numJobs = Integer.valueOf(splitLine[0]);
-			numMachines = Integer.valueOf(splitLine[1]);
-
-			jobs = new Integer[numJobs][numMachines];
-			machines = new Integer[numMachines][numJobs];
-
-			LOGGER.trace("Number of Jobs for the instance: " + numJobs);
-			LOGGER.trace("Number of Machines for the instance: " + numMachines);
-
-			loadProcessingTimess(reader);
-
-			LOGGER.debug("Instance loaded successfully");
-
-		} catch (IOException e) {
-			LOGGER.error(e);
-		}
+	/**
+	 * Loads the instance from a file in the Taillard text format, optionally
+	 * through its binary copy. See {@link InstanceLoader}
+	 *
+	 * @param instanceFile
+	 * @param useCache
+	 */
+	public PermutationFlowShopProblem(String instanceFile, boolean useCache) {
+		this(InstanceLoader.load(Paths.get(instanceFile), useCache));
 	}
 
 	/**
-	 * Method in charge of loading the processing times into the main matrix of
-	 * the class
-	 * 
-	 * @param numJobss
-	 * @param numMachiness
-	 * @param reader
-	 * @throws IOException
+	 * Creates the instance from the processing times of each machine (rows)
+	 * for each job (columns)
+	 *
+	 * @param machines
 	 */
-	private void loadProcessingTimess(BufferedReader reader) throws IOException {
-		for (int i = 0; i < numMachines; i++) {
-			machines[i] = ArrayUtils.toObject(Stream.of(reader.readLine().trim().replace("  ", " ").split(" "))
-					.mapToInt(Integer::parseInt).toArray());
-		}
-		jobs = PfspUtils.transposeMatrix(machines);
+	public PermutationFlowShopProblem(int[][] machines) {
+		// Initialize variables of the instance
+		this.numMachines = machines.length;
+		this.numJobs = machines[0].length;
+		this.machines = machines;
+		this.jobs = PfspUtils.transposeMatrix(machines);
+		timeForJobs = getListOfTimesForJobs();
+		pairMakespans = getPairMakespans();
+		jobsByTime = IntStream.range(0, numJobs).boxed()
+				.sorted(Comparator.comparingInt((Integer j) -> -timeForJobs[j]).thenComparingInt(j -> j))
+				.mapToInt(Integer::intValue).toArray();
+		lowerBound = computeLowerBound();
+		fingerprint = InstanceLoader.fingerprint(machines);
+		LOGGER.trace("Total times for the jobs: " + Arrays.toString(timeForJobs));
 	}
 
 	/**
 	 * Get the list of times for the whole set of jobs
-	 * 
+	 *
 	 * @return
 	 */
-	private List<Integer> getListOfTimesForJobs() {
-		ArrayList<Integer> timesForJobs = new ArrayList<>();
+	private int[] getListOfTimesForJobs() {
+		int[] timesForJobs = new int[numJobs];
 		for (int i = 0; i < numJobs; i++) {
-			timesForJobs.add(Stream.of(jobs[i]).mapToInt(Integer::intValue).sum());
+			timesForJobs[i] = IntStream.of(jobs[i]).sum();
 		}
 		return timesForJobs;
 	}
 
 	/**
-	 * Computes the makespan of any given sequence of jobs
-	 * 
-	 * @param jobsSequence
-	 * @param offset
-	 *            Indicates the starting position in the jobs to compute the
-	 *            makespan values. Used to allow recalculation of makespan
-	 *            without going through the entire process taking advantage of
-	 *            the previously stored information.
+	 * Lower bound proposed by Taillard: for each machine, its total processing
+	 * time plus the shortest time any job needs before reaching it and after
+	 * leaving it. Never lower than the total time of the longest job.
+	 *
 	 * @return
 	 */
-	public Integer computeMakespan(List<Integer> jobsSequence, Integer offset) {
-
-		Integer tmp = 0;
-		// Stores the end times of each task
-		Integer[] endTimes = new Integer[jobsSequence.size()];
-		if (offset > 0) {
-			System.arraycopy(makespanMatrix[0], 0, endTimes, 0, makespanMatrix[0].length);
-		}
-
+	private int computeLowerBound() {
+		int bound = IntStream.of(timeForJobs).max().getAsInt();
+		int[] heads = new int[numJobs];
 		for (int i = 0; i < numMachines; i++) {
-			for (int j = offset; j < jobsSequence.size(); j++) {
-				if (i == 0) {
-					endTimes[j] = tmp + machines[i][jobsSequence.get(j)];
-					tmp = endTimes[j];
-				} else {
-					if (j > 0) {
-						endTimes[j] = endTimes[j] > endTimes[j - 1] ? endTimes[j] + machines[i][jobsSequence.get(j)]
-								: endTimes[j - 1] + machines[i][jobsSequence.get(j)];
-					} else {
-						endTimes[j] = endTimes[j] + machines[i][jobsSequence.get(j)];
-					}
-				}
+			int minHead = Integer.MAX_VALUE;
+			int minTail = Integer.MAX_VALUE;
+			int machineTime = 0;
+			for (int j = 0; j < numJobs; j++) {
+				int tail = timeForJobs[j] - heads[j] - machines[i][j];
+				minHead = Math.min(minHead, heads[j]);
+				minTail = Math.min(minTail, tail);
+				machineTime += machines[i][j];
+				heads[j] += machines[i][j];
 			}
-			makespanMatrix[i] = endTimes.clone();
+			bound = Math.max(bound, minHead + machineTime + minTail);
 		}
-		makespan = endTimes[jobsSequence.size() - 1];
-		return makespan;
+		return bound;
 	}
 
 	/**
-	 * Makes the computation to assign a value to the Candidate List used in the
-	 * solution of the problem. Candidate list defined in the literature as the
-	 * x unscheduled jobs whose total processing times are no less than the
-	 * average value of all scheduled jobs.
+	 * Computes the makespan for every pair of jobs once, so the colony can
+	 * look them up while building the solutions
+	 *
+	 * @return
 	 */
-	public List<Integer> getCandidateListValues() {
-		List<Integer> candidateListt = new ArrayList<>();
-
-		OptionalDouble avgTimeReferenceJobs = scheduledJobs.stream().map(i -> timeForJobs.get(i))
-				.mapToDouble(a -> a.doubleValue()).average();
-		if (avgTimeReferenceJobs.isPresent()) {
-			for (Integer uj : unscheduledJobs) {
-				if (timeForJobs.get(uj) > avgTimeReferenceJobs.getAsDouble()) {
-					candidateListt.add(uj);
-				}
+	private int[] getPairMakespans() {
+		int[] pairs = new int[numJobs * numJobs];
+		for (int i = 0; i < numJobs; i++) {
+			for (int j = 0; j < numJobs; j++) {
+				pairs[PfspUtils.index(i, j, numJobs)] = computeMakespan(jobs[i], jobs[j]);
 			}
 		}
-		if (candidateListt.isEmpty()) {
-			candidateListt.addAll(unscheduledJobs);
-		}
-		Collections.sort(candidateListt);
-		return candidateListt;
+		return pairs;
 	}
 
-	public Integer computeMakespan(Integer job1Id, Integer job2Id) {
-		return computeMakespan(jobs[job1Id], jobs[job2Id]);
+	/**
+	 * Computes the makespan of any given sequence of jobs. Allocates its own
+	 * buffers, meant for one-off evaluations. Repeated evaluations should go
+	 * through a {@link PfspSchedule}.
+	 *
+	 * @param jobsSequence
+	 * @return
+	 */
+	public int computeMakespan(List<Integer> jobsSequence) {
+		int[] sequence = jobsSequence.stream().mapToInt(Integer::intValue).toArray();
+		return computeMakespan(sequence, sequence.length, 0, new int[numMachines][numJobs]);
 	}
 
-	public Integer computeMakespan(Integer[] job1Times, Integer[] job2Times) {
-		Integer xTmp;
-		Integer x = job1Times[0];
-		Integer y = 0;
-
-		for (int i = 0; i < job1Times.length; i++) {
-			if (x < y) {
-				x = y;
-			}
-			xTmp = x;
-			if (i < job1Times.length - 1) {
-				x = xTmp + job1Times[i + 1];
+	/**
+	 * Computes the makespan of the first length jobs of the given sequence
+	 * storing the end times in the given matrix. Doesn't allocate memory and
+	 * doesn't modify the instance, so it can be called from several threads
+	 * at the same time.
+	 *
+	 * @param jobsSequence
+	 * @param length
+	 * @param offset
+	 *            Starting position of the computation. The values of the
+	 *            makespan matrix before this position must correspond to the
+	 *            given sequence.
+	 * @param makespanMatrix
+	 *            End times of each job (columns) in each machine (rows)
+	 * @return
+	 */
+	public int computeMakespan(int[] jobsSequence, int length, int offset, int[][] makespanMatrix) {
+		for (int i = 0; i < numMachines; i++) {
+			int[] times = machines[i];
+			int[] endTimes = makespanMatrix[i];
+			int[] previousMachine = i > 0 ? makespanMatrix[i - 1] : null;
+			int previousJob = offset > 0 ? endTimes[offset - 1] : 0;
+			for (int j = offset; j < length; j++) {
+				int start = previousMachine != null && previousMachine[j] > previousJob ? previousMachine[j]
+						: previousJob;
+				previousJob = start + times[jobsSequence[j]];
+				endTimes[j] = previousJob;
 			}
-			y = xTmp + job2Times[i];
 		}
-		return y;
+		return length > 0 ? makespanMatrix[numMachines - 1][length - 1] : 0;
 	}
 
 	/**
-	 * modifies the list of scheduled and unscheduled jobs and the solution list
+	 * Makespan of the sequence formed by the two given jobs. Precomputed when
+	 * the instance is loaded.
+	 *
+	 * @param job1Id
+	 * @param job2Id
+	 * @return
 	 */
-	public void scheduleJob(int jobId) {
-		if (unscheduledJobs.remove(jobId)) {
-			solution.add(jobId);
-			scheduledJobs.add(jobId);
-		}
+	public int computeMakespan(int job1Id, int job2Id) {
+		return pairMakespans[PfspUtils.index(job1Id, job2Id, numJobs)];
 	}
 
 	/**
-	 * Getter for the array containing the solution sequence
-	 * 
+	 * Makespan of the sequence formed by two jobs given their processing times
+	 * on each machine. Same recurrence used by the makespan matrix, reduced to
+	 * two scalars.
+	 *
+	 * @param job1Times
+	 * @param job2Times
 	 * @return
 	 */
-	public List<Integer> getSolution() {
-		return this.solution;
-	}
+	public int computeMakespan(int[] job1Times, int[] job2Times) {
+		// End times of the first and second job on the current machine
+		int x = 0;
+		int y = 0;
 
-	public Integer getNumJobs() {
-		return numJobs;
+		for (int i = 0; i < job1Times.length; i++) {
+			x += job1Times[i];
+			y = (x > y ? x : y) + job2Times[i];
+		}
+		return y;
 	}
 
-	public Integer getMakespan() {
-		return makespan;
+	public int getNumJobs() {
+		return numJobs;
 	}
 
-	//TODO: Remove if only used in the copy constructor
-	private List<Integer> getCandidateList() {
-		return candidateList;
+	public int getNumMachines() {
+		return numMachines;
 	}
 
-	public Set<Integer> getUnscheduledJobs() {
-		return unscheduledJobs;
+	/**
+	 * Lower bound of the makespan of any sequence. A sequence reaching it is
+	 * optimal.
+	 *
+	 * @return
+	 */
+	public int getLowerBound() {
+		return lowerBound;
 	}
 
-	private List<Integer> getTimeForJobs() {
-		// TODO Auto-generated method stub
-		return null;
+	/**
+	 * Checksum of the processing times, used to check that two processes
+	 * solve the same instance
+	 *
+	 * @return
+	 */
+	public int getFingerprint() {
+		return fingerprint;
 	}
 
-	private Set<Integer> getScheduledJobs() {
-		return scheduledJobs;
+	/**
+	 * Total processing time of each job. Shared array, must not be modified.
+	 *
+	 * @return
+	 */
+	public int[] getTimeForJobs() {
+		return timeForJobs;
 	}
 
-	private Integer[][] getMachines() {
-		return machines;
+	/**
+	 * Jobs sorted by decreasing total processing time. Shared array, must not
+	 * be modified.
+	 *
+	 * @return
+	 */
+	public int[] getJobsByTime() {
+		return jobsByTime;
 	}
 
-	private Integer[][] getJobs() {
+	/**
+	 * Processing times of each job (rows) in each machine (columns). Shared
+	 * matrix, must not be modified.
+	 *
+	 * @return
+	 */
+	public int[][] getJobs() {
 		return jobs;
 	}
 
-	private Integer[][] getMakespanMatrix() {
-		return makespanMatrix;
-	}
-
-	private Integer getNumMachines() {
-		return numMachines;
+	/**
+	 * Processing times of each machine (rows) for each job (columns). Shared
+	 * matrix, must not be modified.
+	 *
+	 * @return
+	 */
+	public int[][] getMachines() {
+		return machines;
 	}
 
 }
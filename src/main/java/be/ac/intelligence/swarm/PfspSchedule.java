@@ -0,0 +1,333 @@
+package be.ac.intelligence.swarm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mutable state of a solution under construction for a shared
+ * {@link PermutationFlowShopProblem}. Each ant owns one schedule which can be
+ * reset and reused between iterations.
+ */
+public class PfspSchedule {
+
+	private final PermutationFlowShopProblem problem;
+	private final Objective objective;
+
+	/**
+	 * Contains the solution sequence of the way the jobs have to be approached.
+	 * Only the first numScheduled positions are meaningful.
+	 */
+	private int[] sequence;
+	private int numScheduled;
+
+	/**
+	 * Scratch buffer used to evaluate arbitrary sequences given as lists
+	 */
+	private int[] sequenceBuffer;
+
+	private int makespan;
+
+	/**
+	 * Value of the objective, evaluated from the last row of the makespan
+	 * matrix, and value of the solution up to each position, so it can be
+	 * recomputed from the same offset as the makespan
+	 */
+	private int objectiveValue;
+	private int[] partialValues;
+
+	/**
+	 * Contains the end-times for each of the job in each of the machines.
+	 * Matrix used to allow recalculating the makespan from an intermediate
+	 * point without going through all the steps from the first machine.
+	 * Allocated once and reused by every makespan computation.
+	 */
+	private int[][] makespanMatrix;
+
+	/**
+	 * Scheduled and unscheduled jobs, O(1) membership checks, updates and
+	 * random picks without boxing
+	 */
+	private IndexedIntSet scheduledJobs;
+	private IndexedIntSet unscheduledJobs;
+
+	/**
+	 * Unscheduled jobs sorted by decreasing total processing time, as a
+	 * doubly linked list: the job following and preceding each job. Index
+	 * numJobs is the head of the list, so scheduling a job unlinks it in
+	 * O(1).
+	 */
+	private int[] nextByTime;
+	private int[] previousByTime;
+	private int head;
+
+	/**
+	 * Candidate list filled by {@link #computeCandidateList()}
+	 */
+	private int[] candidates;
+
+	/**
+	 * Sum of the total processing times of the scheduled jobs, used to obtain
+	 * their average without going through them
+	 */
+	private long scheduledTimeSum;
+
+	public PfspSchedule(PermutationFlowShopProblem problem) {
+		this(problem, Objective.MAKESPAN);
+	}
+
+	public PfspSchedule(PermutationFlowShopProblem problem, Objective objective) {
+		this.problem = problem;
+		this.objective = objective;
+		makespanMatrix = new int[problem.getNumMachines()][problem.getNumJobs()];
+		sequence = new int[problem.getNumJobs()];
+		sequenceBuffer = new int[problem.getNumJobs()];
+		partialValues = new int[problem.getNumJobs()];
+		head = problem.getNumJobs();
+		nextByTime = new int[head + 1];
+		previousByTime = new int[head + 1];
+		candidates = new int[problem.getNumJobs()];
+		scheduledJobs = new IndexedIntSet(problem.getNumJobs());
+		unscheduledJobs = new IndexedIntSet(problem.getNumJobs());
+		reset();
+	}
+
+	/**
+	 * Copy Constructor
+	 *
+	 * @param copy
+	 */
+	public PfspSchedule(PfspSchedule copy) {
+		this.problem = copy.problem;
+		this.objective = copy.objective;
+		this.sequence = copy.sequence.clone();
+		this.numScheduled = copy.numScheduled;
+		this.sequenceBuffer = new int[sequence.length];
+		this.makespan = copy.makespan;
+		this.objectiveValue = copy.objectiveValue;
+		this.partialValues = copy.partialValues.clone();
+		this.makespanMatrix = PfspUtils.deepCopy(copy.makespanMatrix);
+		this.scheduledJobs = new IndexedIntSet(copy.scheduledJobs);
+		this.unscheduledJobs = new IndexedIntSet(copy.unscheduledJobs);
+		this.head = copy.head;
+		this.nextByTime = copy.nextByTime.clone();
+		this.previousByTime = copy.previousByTime.clone();
+		this.candidates = copy.candidates.clone();
+		this.scheduledTimeSum = copy.scheduledTimeSum;
+	}
+
+	/**
+	 * Empties the schedule leaving every job unscheduled. Reuses the buffers
+	 * of the schedule.
+	 */
+	public void reset() {
+		numScheduled = 0;
+		scheduledJobs.clear();
+		unscheduledJobs.addAll();
+		int previous = head;
+		for (int job : problem.getJobsByTime()) {
+			nextByTime[previous] = job;
+			previousByTime[job] = previous;
+			previous = job;
+		}
+		nextByTime[previous] = head;
+		previousByTime[head] = previous;
+		scheduledTimeSum = 0;
+		makespan = 0;
+		objectiveValue = 0;
+	}
+
+	/**
+	 * Replaces the content of the schedule by the given complete or partial
+	 * sequence and computes its makespan and objective value
+	 *
+	 * @param jobsSequence
+	 * @param length
+	 */
+	public void load(int[] jobsSequence, int length) {
+		reset();
+		for (int j = 0; j < length; j++) {
+			scheduleJob(jobsSequence[j]);
+		}
+		updateMakespan(0);
+	}
+
+	/**
+	 * Computes the makespan and the objective value of any given sequence of
+	 * jobs
+	 *
+	 * @param jobsSequence
+	 * @param offset
+	 *            Indicates the starting position in the jobs to compute the
+	 *            makespan values. Used to allow recalculation of makespan
+	 *            without going through the entire process taking advantage of
+	 *            the previously stored information.
+	 * @return
+	 */
+	public int computeMakespan(List<Integer> jobsSequence, int offset) {
+		for (int j = 0; j < jobsSequence.size(); j++) {
+			sequenceBuffer[j] = jobsSequence.get(j);
+		}
+		makespan = problem.computeMakespan(sequenceBuffer, jobsSequence.size(), offset, makespanMatrix);
+		objectiveValue = objective.evaluate(sequenceBuffer, jobsSequence.size(), offset,
+				makespanMatrix[makespanMatrix.length - 1], partialValues);
+		return makespan;
+	}
+
+	/**
+	 * Recomputes the makespan and the objective value of the current solution
+	 * starting from the given position
+	 *
+	 * @param offset
+	 * @return
+	 */
+	public int updateMakespan(int offset) {
+		makespan = problem.computeMakespan(sequence, numScheduled, offset, makespanMatrix);
+		objectiveValue = objective.evaluate(sequence, numScheduled, offset,
+				makespanMatrix[makespanMatrix.length - 1], partialValues);
+		return makespan;
+	}
+
+	/**
+	 * Makes the computation to assign a value to the Candidate List used in the
+	 * solution of the problem. Candidate list defined in the literature as the
+	 * x unscheduled jobs whose total processing times are no less than the
+	 * average value of all scheduled jobs. When there are no such jobs, or no
+	 * scheduled jobs yet, all the unscheduled jobs are candidates.
+	 *
+	 * The unscheduled jobs are kept linked by decreasing total processing
+	 * time, so the candidates are the first ones of the list. Runs in O(x),
+	 * O(number of unscheduled jobs) when all of them are candidates, without
+	 * allocating memory.
+	 *
+	 * @return Number of candidates, copied to the beginning of
+	 *         {@link #getCandidateList()}
+	 */
+	public int computeCandidateList() {
+		int[] timeForJobs = problem.getTimeForJobs();
+		int numCandidates = 0;
+		int job = nextByTime[head];
+		// time > sum / count, compared without leaving the integers
+		while (numScheduled > 0 && job != head && (long) timeForJobs[job] * numScheduled > scheduledTimeSum) {
+			candidates[numCandidates++] = job;
+			job = nextByTime[job];
+		}
+		if (numCandidates == 0) {
+			for (job = nextByTime[head]; job != head; job = nextByTime[job]) {
+				candidates[numCandidates++] = job;
+			}
+		}
+		return numCandidates;
+	}
+
+	/**
+	 * Candidate list sorted by decreasing total processing time. Only the
+	 * first positions returned by the last {@link #computeCandidateList()}
+	 * are meaningful.
+	 *
+	 * @return
+	 */
+	public int[] getCandidateList() {
+		return candidates;
+	}
+
+	/**
+	 * modifies the list of scheduled and unscheduled jobs and the solution
+	 * sequence. O(1).
+	 */
+	public void scheduleJob(int jobId) {
+		insertJob(jobId, numScheduled);
+	}
+
+	/**
+	 * Inserts the job in the given position of the partial solution, shifting
+	 * the following jobs. The makespan matrix is only valid before the
+	 * position until {@link #updateMakespan(int)} is called from it.
+	 *
+	 * @param jobId
+	 * @param position
+	 *            Between 0 and the number of scheduled jobs (inclusive)
+	 */
+	public void insertJob(int jobId, int position) {
+		if (unscheduledJobs.remove(jobId)) {
+			PfspUtils.insertAt(sequence, numScheduled, position, jobId);
+			numScheduled++;
+			scheduledJobs.add(jobId);
+			scheduledTimeSum += problem.getTimeForJobs()[jobId];
+			nextByTime[previousByTime[jobId]] = nextByTime[jobId];
+			previousByTime[nextByTime[jobId]] = previousByTime[jobId];
+		}
+	}
+
+	public boolean isScheduled(int jobId) {
+		return scheduledJobs.contains(jobId);
+	}
+
+	/**
+	 * Copy of the solution sequence as a list, built on every call. The
+	 * construction works on {@link #getSequence()}.
+	 *
+	 * @return
+	 */
+	public List<Integer> getSolution() {
+		List<Integer> solution = new ArrayList<>(numScheduled);
+		for (int j = 0; j < numScheduled; j++) {
+			solution.add(sequence[j]);
+		}
+		return solution;
+	}
+
+	/**
+	 * Solution sequence as a primitive array. Only the first
+	 * {@link #getNumScheduled()} positions are meaningful.
+	 *
+	 * @return
+	 */
+	public int[] getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Number of jobs in the solution sequence
+	 *
+	 * @return
+	 */
+	public int getNumScheduled() {
+		return numScheduled;
+	}
+
+	/**
+	 * Last job added to the solution
+	 *
+	 * @return
+	 */
+	public int getLastJob() {
+		return sequence[numScheduled - 1];
+	}
+
+	public int getMakespan() {
+		return makespan;
+	}
+
+	/**
+	 * Value of the objective for the solution, equal to the makespan with the
+	 * default objective
+	 *
+	 * @return
+	 */
+	public int getObjectiveValue() {
+		return objectiveValue;
+	}
+
+	public Objective getObjective() {
+		return objective;
+	}
+
+	public IndexedIntSet getUnscheduledJobs() {
+		return unscheduledJobs;
+	}
+
+	public PermutationFlowShopProblem getProblem() {
+		return problem;
+	}
+
+}
@@ -1,10 +1,113 @@
 package be.ac.intelligence.swarm;
 
 public class PfspUtils {
+	/**
+	 * Position of the element (i, j) in a square matrix of size n stored as a
+	 * flat row-major array
+	 * 
+	 * @param i
+	 * @param j
+	 * @param n
+	 * @return
+	 */
+	public static int index(int i, int j, int n) {
+		return i * n + j;
+	}
+
 	public static <T> T[][] deepCopy(T[][] matrix) {
 		return java.util.Arrays.stream(matrix).map(el -> el.clone()).toArray($ -> matrix.clone());
 	}
 
+	public static int[][] deepCopy(int[][] matrix) {
+		return java.util.Arrays.stream(matrix).map(el -> el.clone()).toArray(int[][]::new);
+	}
+
+	public static int[][] transposeMatrix(int[][] m) {
+		int[][] temp = new int[m[0].length][m.length];
+		for (int i = 0; i < m.length; i++)
+			for (int j = 0; j < m[0].length; j++)
+				temp[j][i] = m[i][j];
+		return temp;
+	}
+
+	/**
+	 * Position of the value in the first length elements of the array, -1 if
+	 * it's not found
+	 * 
+	 * @param array
+	 * @param length
+	 * @param value
+	 * @return
+	 */
+	public static int indexOf(int[] array, int length, int value) {
+		for (int i = 0; i < length; i++) {
+			if (array[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Removes the element in the given position shifting the following ones
+	 * to the left
+	 * 
+	 * @param array
+	 * @param length
+	 *            Number of meaningful elements before the removal
+	 * @param position
+	 */
+	public static void removeAt(int[] array, int length, int position) {
+		System.arraycopy(array, position + 1, array, position, length - position - 1);
+	}
+
+	/**
+	 * Inserts the value in the given position shifting the following elements
+	 * to the right. The array must have room for one more element.
+	 * 
+	 * @param array
+	 * @param length
+	 *            Number of meaningful elements before the insertion
+	 * @param position
+	 * @param value
+	 */
+	public static void insertAt(int[] array, int length, int position, int value) {
+		System.arraycopy(array, position, array, position + 1, length - position);
+		array[position] = value;
+	}
+
+	/**
+	 * For each row of a square matrix of size n stored as a flat row-major
+	 * array, the k columns with the highest values sorted by decreasing value,
+	 * ties broken by column number. The diagonal is left out, so k is limited
+	 * to n - 1.
+	 * 
+	 * @param values
+	 * @param n
+	 * @param k
+	 * @return Flat row-major array with k columns per row
+	 */
+	public static int[] nearestNeighbours(double[] values, int n, int k) {
+		int[] neighbours = new int[n * k];
+		Integer[] columns = new Integer[n - 1];
+		for (int i = 0; i < n; i++) {
+			int row = index(i, 0, n);
+			for (int j = 0, c = 0; j < n; j++) {
+				if (j != i) {
+					columns[c++] = j;
+				}
+			}
+			java.util.Arrays.sort(columns, (a, b) -> {
+				int byValue = Double.compare(values[row + b], values[row + a]);
+				return byValue != 0 ? byValue : Integer.compare(a, b);
+			});
+			for (int c = 0; c < k; c++) {
+				neighbours[index(i, c, k)] = columns[c];
+			}
+		}
+		return neighbours;
+	}
+
 	public static Integer[][] transposeMatrix(Integer[][] m) {
 		Integer[][] temp = new Integer[m[0].length][m.length];
 		for (int i = 0; i < m.length; i++)
@@ -0,0 +1,162 @@
+package be.ac.intelligence.swarm;
+
+import java.util.Arrays;
+
+/**
+ * Pheromone of the colony together with the choice information used by the
+ * ants, tau^alpha * eta^beta, so the powers are not computed at every
+ * construction step. Every change of the pheromone goes through this class,
+ * which refreshes only the choice information of the modified entries.
+ *
+ * Both matrices are square matrices of size numJobs stored as flat row-major
+ * arrays. See {@link PfspUtils#index(int, int, int)}
+ */
+public class PheromoneMatrix {
+
+	private final int numJobs;
+	private final double alpha;
+
+	private final double[] pheromone;
+
+	/**
+	 * Heuristic information raised to beta, computed once
+	 */
+	private final double[] weightedHeuristic;
+
+	private final double[] choiceInfo;
+
+	public PheromoneMatrix(int numJobs, double[] heuristicInformation, double alpha, double beta) {
+		this.numJobs = numJobs;
+		this.alpha = alpha;
+		this.pheromone = new double[numJobs * numJobs];
+		this.choiceInfo = new double[numJobs * numJobs];
+		this.weightedHeuristic = new double[numJobs * numJobs];
+		for (int ij = 0; ij < weightedHeuristic.length; ij++) {
+			weightedHeuristic[ij] = Math.pow(heuristicInformation[ij], beta);
+		}
+	}
+
+	/**
+	 * Sets every pheromone value to the given level
+	 *
+	 * @param value
+	 */
+	public void fill(double value) {
+		Arrays.fill(pheromone, value);
+		double weightedValue = weight(value);
+		for (int ij = 0; ij < choiceInfo.length; ij++) {
+			choiceInfo[ij] = weightedValue * weightedHeuristic[ij];
+		}
+	}
+
+	public double get(int i, int j) {
+		return pheromone[PfspUtils.index(i, j, numJobs)];
+	}
+
+	/**
+	 * Sets the pheromone of the entry (i, j) refreshing its choice information
+	 *
+	 * @param i
+	 * @param j
+	 * @param value
+	 */
+	public void set(int i, int j, double value) {
+		int ij = PfspUtils.index(i, j, numJobs);
+		pheromone[ij] = value;
+		choiceInfo[ij] = weight(value) * weightedHeuristic[ij];
+	}
+
+	/**
+	 * Evaporation of every entry, never going below the given minimum. Single
+	 * pass over the primitive arrays, without calls per entry, so the loops
+	 * can be vectorized by the JIT compiler.
+	 *
+	 * @param factor
+	 *            Fraction of the pheromone kept, 1 - rho
+	 * @param min
+	 */
+	public void evaporate(double factor, double min) {
+		for (int ij = 0; ij < pheromone.length; ij++) {
+			pheromone[ij] = Math.max(pheromone[ij] * factor, min);
+		}
+		if (alpha == 1.0) {
+			for (int ij = 0; ij < choiceInfo.length; ij++) {
+				choiceInfo[ij] = pheromone[ij] * weightedHeuristic[ij];
+			}
+		} else {
+			for (int ij = 0; ij < choiceInfo.length; ij++) {
+				choiceInfo[ij] = Math.pow(pheromone[ij], alpha) * weightedHeuristic[ij];
+			}
+		}
+	}
+
+	/**
+	 * Average lambda-branching factor of the jobs: number of successors whose
+	 * pheromone is above min + lambda * (max - min), min and max being the
+	 * extreme values of the successors of the job. Close to 1 when the colony
+	 * has converged to a single sequence.
+	 *
+	 * Jobs whose successors all have the same pheromone carry no information
+	 * and are left out of the average, e.g. the last job of the sequence the
+	 * colony converged to. When every job is in that case, all the successors
+	 * are branches.
+	 *
+	 * @param lambda
+	 * @return
+	 */
+	public double branchingFactor(double lambda) {
+		long branches = 0;
+		int informativeJobs = 0;
+		for (int i = 0; i < numJobs; i++) {
+			int row = PfspUtils.index(i, 0, numJobs);
+			double min = Double.MAX_VALUE;
+			double max = 0.0;
+			for (int j = 0; j < numJobs; j++) {
+				if (j != i) {
+					min = Math.min(min, pheromone[row + j]);
+					max = Math.max(max, pheromone[row + j]);
+				}
+			}
+			if (max == min) {
+				continue;
+			}
+			informativeJobs++;
+			double cutoff = min + lambda * (max - min);
+			for (int j = 0; j < numJobs; j++) {
+				if (j != i && pheromone[row + j] >= cutoff) {
+					branches++;
+				}
+			}
+		}
+		return informativeJobs > 0 ? (double) branches / informativeJobs : numJobs - 1;
+	}
+
+	private double weight(double value) {
+		return alpha == 1.0 ? value : Math.pow(value, alpha);
+	}
+
+	/**
+	 * Choice information tau^alpha * eta^beta of every entry. Shared array,
+	 * must not be modified.
+	 *
+	 * @return
+	 */
+	public double[] getChoiceInfo() {
+		return choiceInfo;
+	}
+
+	/**
+	 * Pheromone of every entry. Shared array, must be modified only through
+	 * {@link #set(int, int, double)} or {@link #fill(double)}.
+	 *
+	 * @return
+	 */
+	public double[] getPheromone() {
+		return pheromone;
+	}
+
+	public int getNumJobs() {
+		return numJobs;
+	}
+
+}
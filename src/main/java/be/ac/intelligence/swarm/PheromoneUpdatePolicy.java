@@ -0,0 +1,57 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Solution that deposits pheromone in the global update done after each
+ * iteration
+ */
+public enum PheromoneUpdatePolicy {
+	/**
+	 * Best solution of the iteration, as in the original ACS. Keeps the
+	 * exploration of the colony wider.
+	 */
+	ITERATION_BEST,
+	/**
+	 * Best solution found since the beginning of the execution. Converges
+	 * faster around the best solution.
+	 */
+	BEST_SO_FAR,
+	/**
+	 * Iteration-best at the beginning of the execution and best-so-far with
+	 * an increasing frequency afterwards, following the schedule proposed by
+	 * Stutzle and Hoos for MAX-MIN Ant System: every 5 iterations after the
+	 * 25th, every 3 after the 75th, every 2 after the 125th and always after
+	 * the 250th.
+	 */
+	MIXED;
+
+	/**
+	 * Whether the best-so-far solution deposits the pheromone in the given
+	 * iteration
+	 * 
+	 * @param iteration
+	 *            Iteration counted from one
+	 * @return
+	 */
+	public boolean usesBestSoFar(int iteration) {
+		switch (this) {
+		case BEST_SO_FAR:
+			return true;
+		case MIXED:
+			int frequency = iteration <= 25 ? 0 : iteration <= 75 ? 5 : iteration <= 125 ? 3 : iteration <= 250 ? 2 : 1;
+			return frequency > 0 && iteration % frequency == 0;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Parses the value given in the command line, e.g. "iteration-best" or
+	 * "mixed"
+	 * 
+	 * @param value
+	 * @return
+	 */
+	public static PheromoneUpdatePolicy fromString(String value) {
+		return valueOf(value.trim().toUpperCase().replace('-', '_'));
+	}
+}
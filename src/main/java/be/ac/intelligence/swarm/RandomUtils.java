@@ -5,26 +5,43 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+/**
+ * Random stream of a single thread. Backed by a {@link SplittableRandom}, so
+ * it is neither synchronized nor shared: each solver creates its own stream
+ * from the seed of the run and derives the streams of its ants from it.
+ * Solvers running concurrently in the same JVM are independent and
+ * reproducible.
+ */
 public class RandomUtils {
 
-	private static RandomUtils instance = null;
-	private final Random random;
+	private final SplittableRandom random;
 
-	private RandomUtils(Integer seed) {
-		random = new Random(seed);
+	/**
+	 * Creates an independent random stream. Used to give each ant its own
+	 * source of random numbers so that the colony can be built concurrently.
+	 * 
+	 * @param seed
+	 */
+	public RandomUtils(long seed) {
+		random = new SplittableRandom(seed);
 	}
 
-	public static RandomUtils getInstance(Integer seed) {
-		if (instance == null && seed != null) {
-			instance = new RandomUtils(seed);
-		}
-		return instance;
+	private RandomUtils(SplittableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * New stream statistically independent from this one, which advances
+	 * 
+	 * @return
+	 */
+	public RandomUtils split() {
+		return new RandomUtils(random.split());
 	}
 
 	/**
@@ -52,14 +69,25 @@ public class RandomUtils {
 	 * 
 	 * @return
 	 */
-	public Double getRandomDouble() {
+	public double getRandomDouble() {
 		return random.nextDouble();
 	}
 
-	public Random getRandom() {
+	public SplittableRandom getRandom() {
 		return random;
 	}
 
+	/**
+	 * Shuffles the list in place, Fisher-Yates
+	 * 
+	 * @param list
+	 */
+	public void shuffle(List<?> list) {
+		for (int i = list.size() - 1; i > 0; i--) {
+			Collections.swap(list, i, random.nextInt(i + 1));
+		}
+	}
+
 	public <T> T getRandomFromCollection(Collection<T> c) {
 		int rndPos = random.nextInt(c.size());
 		int i = 0;
@@ -72,6 +100,17 @@ public class RandomUtils {
 		return null;
 	}
 
+	/**
+	 * Uniformly random element of the set, O(1)
+	 * 
+	 * @param set
+	 *            Not empty
+	 * @return
+	 */
+	public int getRandomElement(IndexedIntSet set) {
+		return set.get(random.nextInt(set.size()));
+	}
+
 	/**
 	 * Generates a randomized list of integers in the range specified by the
 	 * parameters start (inclusive) and end (exclusive)
@@ -91,32 +130,51 @@ public class RandomUtils {
 		if (!exclusionList.isEmpty()) {
 			resultList = resultList.stream().filter(p -> !exclusionList.contains(p)).collect(Collectors.toList());
 		}
-		Collections.shuffle(resultList, random);
+		shuffle(resultList);
 		return new HashSet<Integer>(resultList);
 
 	}
 
 	/**
-	 * Returns a random element from a list given the probability items in an
-	 * {@link Map.Entry<Integer, Double>} format, where the key of the entry is
-	 * the element and the value is its probability.
+	 * Replaces the weights by their cumulative sums, to be sampled with
+	 * {@link #sampleCumulative(double[], int)}
 	 * 
-	 * Asumes that the list of elements total 1.0 for the sum of their
-	 * probabilities.
+	 * @param weights
+	 * @param length
+	 * @return Total of the weights
+	 */
+	public static double cumulate(double[] weights, int length) {
+		double sum = 0.0;
+		for (int k = 0; k < length; k++) {
+			sum += weights[k];
+			weights[k] = sum;
+		}
+		return sum;
+	}
+
+	/**
+	 * Draws an index with probability proportional to its weight given the
+	 * cumulative sums of the weights. Binary search of the first cumulative
+	 * sum above the target, O(log n).
 	 * 
-	 * @param list
+	 * @param cumulative
+	 *            Non-decreasing cumulative sums, the last one positive
+	 * @param length
 	 * @return
 	 */
-	public Integer getRandomFromList(List<Map.Entry<Integer, Double>> list) {
-		Double prob = getRandomDouble();
-		Double sum = 0.0;
-		for (Map.Entry<Integer, Double> elem : list) {
-			sum += elem.getValue();
-			if (prob.compareTo(sum)<= 0) {
-				return elem.getKey();
+	public int sampleCumulative(double[] cumulative, int length) {
+		double target = random.nextDouble() * cumulative[length - 1];
+		int low = 0;
+		int high = length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (target < cumulative[middle]) {
+				high = middle;
+			} else {
+				low = middle + 1;
 			}
 		}
-		throw new IllegalStateException("The probabilities of the given elements don't sum 1.0");
+		return low;
 	}
 
 }
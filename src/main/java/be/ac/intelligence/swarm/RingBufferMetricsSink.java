@@ -0,0 +1,57 @@
+package be.ac.intelligence.swarm;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the measures of the last iterations in memory, dropping the oldest
+ * ones once full
+ */
+public class RingBufferMetricsSink implements MetricsSink {
+
+	private final IterationMetrics[] buffer;
+
+	/**
+	 * Position of the next measure and number of measures received
+	 */
+	private int next;
+	private long count;
+
+	public RingBufferMetricsSink(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be at least one");
+		}
+		this.buffer = new IterationMetrics[capacity];
+	}
+
+	@Override
+	public synchronized void record(IterationMetrics metrics) {
+		buffer[next] = metrics;
+		next = (next + 1) % buffer.length;
+		count++;
+	}
+
+	/**
+	 * Measures kept, from the oldest to the newest
+	 *
+	 * @return
+	 */
+	public synchronized List<IterationMetrics> snapshot() {
+		int size = (int) Math.min(count, buffer.length);
+		List<IterationMetrics> metrics = new ArrayList<>(size);
+		int first = size < buffer.length ? 0 : next;
+		for (int i = 0; i < size; i++) {
+			metrics.add(buffer[(first + i) % buffer.length]);
+		}
+		return metrics;
+	}
+
+	/**
+	 * Number of measures received, including the dropped ones
+	 *
+	 * @return
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+}
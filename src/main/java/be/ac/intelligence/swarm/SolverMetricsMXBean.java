@@ -0,0 +1,35 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Measures of the last iteration of the solver published through JMX. See
+ * {@link JmxMetricsSink}
+ */
+public interface SolverMetricsMXBean {
+
+	int getIteration();
+
+	int getBestMakespan();
+
+	double getMeanMakespan();
+
+	int getWorstMakespan();
+
+	int getBestSoFarMakespan();
+
+	long getConstructionTime();
+
+	long getLocalSearchTime();
+
+	long getPheromoneUpdateTime();
+
+	double getEvaluationsPerSecond();
+
+	long getAllocatedBytes();
+
+	/**
+	 * Evaluations of every iteration since the sink was registered
+	 *
+	 * @return
+	 */
+	long getTotalEvaluations();
+}
@@ -0,0 +1,73 @@
+package be.ac.intelligence.swarm;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of an execution of the solver: best solution found and how the
+ * execution went
+ */
+public class SolverResult {
+
+	private final int[] sequence;
+	private final int makespan;
+
+	/**
+	 * Number of iterations executed and iteration, counted from one, in which
+	 * the best solution was found
+	 */
+	private final int iterations;
+	private final int bestIteration;
+
+	private final TerminationReason terminationReason;
+	private final long wallTime;
+
+	public SolverResult(int[] sequence, int makespan, int iterations, int bestIteration,
+			TerminationReason terminationReason, long wallTime) {
+		this.sequence = sequence.clone();
+		this.makespan = makespan;
+		this.iterations = iterations;
+		this.bestIteration = bestIteration;
+		this.terminationReason = terminationReason;
+		this.wallTime = wallTime;
+	}
+
+	/**
+	 * Best sequence found. Shared array, must not be modified.
+	 * 
+	 * @return
+	 */
+	public int[] getSequence() {
+		return sequence;
+	}
+
+	public int getMakespan() {
+		return makespan;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public int getBestIteration() {
+		return bestIteration;
+	}
+
+	public TerminationReason getTerminationReason() {
+		return terminationReason;
+	}
+
+	/**
+	 * Wall-clock time of the execution in milliseconds
+	 * 
+	 * @return
+	 */
+	public long getWallTime() {
+		return wallTime;
+	}
+
+	@Override
+	public String toString() {
+		return "makespan " + makespan + " found in iteration " + bestIteration + " of " + iterations + " ("
+				+ terminationReason + ", " + wallTime + " ms): " + Arrays.toString(sequence);
+	}
+}
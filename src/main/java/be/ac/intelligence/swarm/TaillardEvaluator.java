@@ -0,0 +1,166 @@
+package be.ac.intelligence.swarm;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates the insertion of a job in every position of a sequence using the
+ * accelerations proposed by Taillard. The heads (e) and tails (q) of the
+ * sequence are computed once, then the makespan of each insertion position
+ * is obtained from the completion times of the inserted job (f) in O(m),
+ * giving O(nm) for the whole set of positions instead of O(n^2 m).
+ *
+ * Keeps its own buffers, so each thread needs its own evaluator.
+ */
+public class TaillardEvaluator implements InsertionEvaluator {
+
+	private final int numMachines;
+
+	/**
+	 * Processing times of each job (rows) in each machine (columns)
+	 */
+	private final int[][] jobs;
+
+	/**
+	 * Earliest completion time of the job in each position (rows) in each
+	 * machine (columns). Shifted one position: row 0 is kept at zero and row
+	 * j + 1 holds the values for position j of the sequence.
+	 */
+	private final int[][] heads;
+
+	/**
+	 * Time between the start of the job in each position (rows) in each
+	 * machine (columns) and the end of the schedule. Row length is kept at
+	 * zero for the evaluated sequence.
+	 */
+	private final int[][] tails;
+
+	/**
+	 * Makespan obtained for each insertion position in the last evaluation
+	 */
+	private final int[] insertionMakespans;
+
+	private int bestMakespan;
+
+	public TaillardEvaluator(PermutationFlowShopProblem problem) {
+		this.numMachines = problem.getNumMachines();
+		this.jobs = problem.getJobs();
+		this.heads = new int[problem.getNumJobs() + 1][numMachines];
+		this.tails = new int[problem.getNumJobs() + 1][numMachines];
+		this.insertionMakespans = new int[problem.getNumJobs() + 1];
+	}
+
+	/**
+	 * Finds the position of the sequence where the insertion of the job gives
+	 * the lowest makespan. Ties are resolved in favour of the first position.
+	 *
+	 * @param sequence
+	 *            Sequence not containing the job
+	 * @param length
+	 *            Number of jobs of the sequence to consider
+	 * @param job
+	 *            Job to insert
+	 * @return Position for the job, between 0 and length (inclusive)
+	 */
+	@Override
+	public int bestInsertion(int[] sequence, int length, int job) {
+		computeHeads(jobs, sequence, length, heads);
+		computeTails(jobs, sequence, length, tails);
+		int[] jobTimes = jobs[job];
+		int bestPosition = 0;
+		bestMakespan = Integer.MAX_VALUE;
+		for (int k = 0; k <= length; k++) {
+			// Heads of the job before position k and tails of the job that
+			// will follow the inserted one
+			int[] head = heads[k];
+			int[] tail = tails[k];
+			int completion = 0;
+			int makespan = 0;
+			for (int i = 0; i < numMachines; i++) {
+				completion = (completion > head[i] ? completion : head[i]) + jobTimes[i];
+				if (completion + tail[i] > makespan) {
+					makespan = completion + tail[i];
+				}
+			}
+			insertionMakespans[k] = makespan;
+			if (makespan < bestMakespan) {
+				bestMakespan = makespan;
+				bestPosition = k;
+			}
+		}
+		return bestPosition;
+	}
+
+	/**
+	 * Computes the earliest completion time of each position of the sequence
+	 * in each machine. Row j + 1 of heads receives the values of position j,
+	 * row 0 must be kept at zero.
+	 *
+	 * @param jobs
+	 * @param sequence
+	 * @param length
+	 * @param heads
+	 */
+	static void computeHeads(int[][] jobs, int[] sequence, int length, int[][] heads) {
+		int numMachines = heads[0].length;
+		for (int j = 0; j < length; j++) {
+			int[] times = jobs[sequence[j]];
+			int[] previous = heads[j];
+			int[] current = heads[j + 1];
+			int previousMachine = 0;
+			for (int i = 0; i < numMachines; i++) {
+				previousMachine = (previousMachine > previous[i] ? previousMachine : previous[i]) + times[i];
+				current[i] = previousMachine;
+			}
+		}
+	}
+
+	/**
+	 * Computes the time from the start of each position of the sequence in
+	 * each machine until the end of the schedule. Row length of tails is set
+	 * to zero.
+	 *
+	 * @param jobs
+	 * @param sequence
+	 * @param length
+	 * @param tails
+	 */
+	static void computeTails(int[][] jobs, int[] sequence, int length, int[][] tails) {
+		int numMachines = tails[0].length;
+		Arrays.fill(tails[length], 0);
+		for (int j = length - 1; j >= 0; j--) {
+			int[] times = jobs[sequence[j]];
+			int[] next = tails[j + 1];
+			int[] current = tails[j];
+			int nextMachine = 0;
+			for (int i = numMachines - 1; i >= 0; i--) {
+				nextMachine = (nextMachine > next[i] ? nextMachine : next[i]) + times[i];
+				current[i] = nextMachine;
+			}
+		}
+	}
+
+	/**
+	 * Makespan of the best insertion found by the last evaluation
+	 *
+	 * @return
+	 */
+	public int getBestMakespan() {
+		return bestMakespan;
+	}
+
+	@Override
+	public int getBestValue() {
+		return bestMakespan;
+	}
+
+	/**
+	 * Makespan of the insertion of the job in each position for the last
+	 * evaluation. Only the first length + 1 values are meaningful.
+	 *
+	 * @return
+	 */
+	public int[] getInsertionMakespans() {
+		return insertionMakespans;
+	}
+
+}
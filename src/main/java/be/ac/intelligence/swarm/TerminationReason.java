@@ -0,0 +1,38 @@
+package be.ac.intelligence.swarm;
+
+/**
+ * Criterion that stopped the execution of the solver
+ */
+public enum TerminationReason {
+	/**
+	 * Maximum number of iterations executed
+	 */
+	ITERATIONS,
+	/**
+	 * Wall-clock time budget exhausted
+	 */
+	WALL_TIME,
+	/**
+	 * CPU time budget exhausted, counting the time of the threads building
+	 * the tours
+	 */
+	CPU_TIME,
+	/**
+	 * Target makespan reached
+	 */
+	TARGET,
+	/**
+	 * Lower bound of the instance reached, the solution is optimal
+	 */
+	LOWER_BOUND,
+	/**
+	 * No improvement of the best makespan during the configured number of
+	 * iterations
+	 */
+	STAGNATION,
+	/**
+	 * Stopped from another thread, e.g. when another island reached the
+	 * target
+	 */
+	STOPPED;
+}
@@ -0,0 +1,120 @@
+package be.ac.intelligence.swarm;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Total weighted tardiness: sum over the jobs of their weight times the time
+ * they complete after their due date on the last machine
+ */
+public class WeightedTardinessObjective implements Objective {
+
+	/**
+	 * Due date and weight of each job
+	 */
+	private final int[] dueDates;
+	private final int[] weights;
+
+	/**
+	 * @param dueDates
+	 * @param weights
+	 *            Same length as the due dates
+	 */
+	public WeightedTardinessObjective(int[] dueDates, int[] weights) {
+		if (dueDates.length != weights.length) {
+			throw new IllegalArgumentException(
+					dueDates.length + " due dates for " + weights.length + " weights");
+		}
+		this.dueDates = dueDates.clone();
+		this.weights = weights.clone();
+	}
+
+	/**
+	 * Loads the due dates from a text file with a line per job, in the order
+	 * of the instance: due date optionally followed by the weight, one by
+	 * default. Blank lines are ignored.
+	 *
+	 * @param file
+	 * @return
+	 * @throws UncheckedIOException
+	 *             If the file can't be read
+	 * @throws IllegalArgumentException
+	 *             If the file is malformed
+	 */
+	public static WeightedTardinessObjective load(Path file) {
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(file);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read the due dates " + file, e);
+		}
+		int[] dueDates = new int[lines.size()];
+		int[] weights = new int[lines.size()];
+		int numJobs = 0;
+		for (int l = 0; l < lines.size(); l++) {
+			String line = lines.get(l).trim();
+			if (line.isEmpty()) {
+				continue;
+			}
+			String[] values = line.split("\\s+");
+			try {
+				if (values.length > 2) {
+					throw new NumberFormatException("more than two values");
+				}
+				dueDates[numJobs] = Integer.parseInt(values[0]);
+				weights[numJobs] = values.length > 1 ? Integer.parseInt(values[1]) : 1;
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(
+						"Malformed due dates " + file + " at line " + (l + 1) + ": " + e.getMessage(), e);
+			}
+			numJobs++;
+		}
+		return new WeightedTardinessObjective(Arrays.copyOf(dueDates, numJobs),
+				Arrays.copyOf(weights, numJobs));
+	}
+
+	@Override
+	public int evaluate(int[] sequence, int length, int offset, int[] completionTimes, int[] partialValues) {
+		int sum = offset > 0 ? partialValues[offset - 1] : 0;
+		for (int j = offset; j < length; j++) {
+			sum += tardiness(sequence[j], completionTimes[j]);
+			partialValues[j] = sum;
+		}
+		return sum;
+	}
+
+	private int tardiness(int job, int completionTime) {
+		return completionTime > dueDates[job] ? weights[job] * (completionTime - dueDates[job]) : 0;
+	}
+
+	/**
+	 * The first job completes after its total processing time
+	 */
+	@Override
+	public int pairValue(PermutationFlowShopProblem problem, int first, int second) {
+		return tardiness(first, problem.getTimeForJobs()[first])
+				+ tardiness(second, problem.computeMakespan(first, second));
+	}
+
+	@Override
+	public int lowerBound(PermutationFlowShopProblem problem) {
+		return 0;
+	}
+
+	@Override
+	public void validate(PermutationFlowShopProblem problem) {
+		if (dueDates.length != problem.getNumJobs()) {
+			throw new IllegalArgumentException(
+					dueDates.length + " due dates for an instance of " + problem.getNumJobs() + " jobs");
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "weighted tardiness";
+	}
+}
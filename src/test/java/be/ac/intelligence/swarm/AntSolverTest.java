@@ -0,0 +1,226 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import be.ac.intelligence.swarm.AntSolver.AntSolverBuilder;
+
+public class AntSolverTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String instance;
+
+	@Before
+	public void setUp() throws IOException {
+		instance = TestInstances.randomInstance(folder, 15, 5, 0);
+	}
+
+	private AntSolverBuilder builder() {
+		return new AntSolverBuilder().instance(instance).numAnts(5).seed(1).pheromoneDecayCoeficient(0.1).beta(2.0)
+				.alpha(1.0).q0(0.9).rho(0.1).localSearch(false);
+	}
+
+	@Test
+	public void stopsAfterIterations() {
+		AntSolver solver = builder().numIterations(7).build();
+		solver.execute();
+		assertEquals(TerminationReason.ITERATIONS, solver.getTerminationReason());
+		assertEquals(7, solver.getIterationsExecuted());
+	}
+
+	@Test
+	public void stopsAtTarget() {
+		AntSolver solver = builder().numIterations(1000).targetMakespan(Integer.MAX_VALUE).build();
+		solver.execute();
+		assertEquals(TerminationReason.TARGET, solver.getTerminationReason());
+		assertEquals(1, solver.getIterationsExecuted());
+	}
+
+	@Test
+	public void stopsAtLowerBound() throws IOException {
+		// With a single machine every sequence is optimal
+		File single = folder.newFile();
+		Files.write(single.toPath(), Arrays.asList("4 1", "3 1 4 1"));
+		AntSolver solver = builder().instance(single.getAbsolutePath()).numIterations(1000).build();
+		solver.execute();
+		assertEquals(TerminationReason.LOWER_BOUND, solver.getTerminationReason());
+		assertEquals(9, solver.getBestMakespan());
+	}
+
+	@Test
+	public void stopsOnStagnation() {
+		AntSolver solver = builder().numIterations(0).stagnationLimit(3).build();
+		solver.execute();
+		assertEquals(TerminationReason.STAGNATION, solver.getTerminationReason());
+		assertTrue(solver.getIterationsExecuted() >= 3);
+	}
+
+	@Test
+	public void stopsOnTimeBudget() {
+		AntSolver solver = builder().numIterations(0).maxWallTime(50L).build();
+		long start = System.nanoTime();
+		solver.execute();
+		assertEquals(TerminationReason.WALL_TIME, solver.getTerminationReason());
+		assertTrue(System.nanoTime() - start >= 50_000_000L);
+
+		solver = builder().numIterations(0).maxCpuTime(50L).numThreads(2).build();
+		solver.execute();
+		assertEquals(TerminationReason.CPU_TIME, solver.getTerminationReason());
+	}
+
+	@Test
+	public void resultKeepsBestSoFar() {
+		int previous = Integer.MAX_VALUE;
+		for (int iterations = 1; iterations <= 10; iterations++) {
+			SolverResult result = builder().numIterations(iterations).build().execute();
+			// Same seed, same trajectory: more iterations never give a worse result
+			assertTrue(result.getMakespan() <= previous);
+			previous = result.getMakespan();
+			assertEquals(iterations, result.getIterations());
+			assertTrue(result.getBestIteration() >= 1 && result.getBestIteration() <= iterations);
+		}
+	}
+
+	@Test
+	public void resultMatchesItsSequence() throws IOException {
+		PermutationFlowShopProblem problem = new PermutationFlowShopProblem(instance);
+		for (PheromoneUpdatePolicy policy : PheromoneUpdatePolicy.values()) {
+			AntSolver solver = builder().numIterations(30).updatePolicy(policy).localSearch(true).build();
+			SolverResult result = solver.execute();
+			assertEquals(policy.toString(), result.getMakespan(), problem.computeMakespan(
+					IntStream.of(result.getSequence()).boxed().collect(Collectors.toList())));
+			assertEquals(result.getMakespan(), solver.getBestMakespan());
+			assertEquals(TerminationReason.ITERATIONS, result.getTerminationReason());
+		}
+	}
+
+	@Test
+	public void maxMinAntSystem() throws IOException {
+		PermutationFlowShopProblem problem = new PermutationFlowShopProblem(instance);
+		SolverResult sequential = builder().algorithm(AntAlgorithm.MMAS).rho(0.2).numIterations(400)
+				.updatePolicy(PheromoneUpdatePolicy.BEST_SO_FAR).build().execute();
+		SolverResult parallel = builder().algorithm(AntAlgorithm.MMAS).rho(0.2).numIterations(400)
+				.updatePolicy(PheromoneUpdatePolicy.BEST_SO_FAR).numThreads(3).build().execute();
+		assertEquals(sequential.getMakespan(), parallel.getMakespan());
+		assertEquals(sequential.getMakespan(), problem.computeMakespan(
+				IntStream.of(sequential.getSequence()).boxed().collect(Collectors.toList())));
+	}
+
+	@Test
+	public void mixedUpdateSchedule() {
+		PheromoneUpdatePolicy mixed = PheromoneUpdatePolicy.MIXED;
+		assertEquals(0, IntStream.rangeClosed(1, 25).filter(mixed::usesBestSoFar).count());
+		assertEquals(10, IntStream.rangeClosed(26, 75).filter(mixed::usesBestSoFar).count());
+		assertEquals(25, IntStream.rangeClosed(201, 250).filter(mixed::usesBestSoFar).count());
+		assertEquals(50, IntStream.rangeClosed(251, 300).filter(mixed::usesBestSoFar).count());
+		assertTrue(IntStream.rangeClosed(1, 300).allMatch(PheromoneUpdatePolicy.BEST_SO_FAR::usesBestSoFar));
+		assertTrue(IntStream.rangeClosed(1, 300).noneMatch(PheromoneUpdatePolicy.ITERATION_BEST::usesBestSoFar));
+	}
+
+	@Test
+	public void concurrentSolversAreIndependent() throws Exception {
+		SolverResult alone = builder().numIterations(20).build().execute();
+		ExecutorService threads = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<SolverResult>> results = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				results.add(threads.submit(() -> builder().numIterations(20).numThreads(2).build().execute()));
+			}
+			for (Future<SolverResult> result : results) {
+				assertEquals(alone.getMakespan(), result.get().getMakespan());
+				assertArrayEquals(alone.getSequence(), result.get().getSequence());
+			}
+		} finally {
+			threads.shutdown();
+		}
+	}
+
+	@Test
+	public void nehSeeding() throws IOException {
+		PermutationFlowShopProblem problem = new PermutationFlowShopProblem(instance);
+		int[] neh = NehHeuristic.solve(problem);
+		int nehMakespan = problem.computeMakespan(IntStream.of(neh).boxed().collect(Collectors.toList()));
+		AntSolver solver = builder().nehSeeding(true).numIterations(0).stagnationLimit(5).build();
+		SolverResult result = solver.execute();
+		assertTrue(result.getMakespan() <= nehMakespan);
+		if (result.getMakespan() == nehMakespan) {
+			assertEquals(0, result.getBestIteration());
+		}
+	}
+
+	@Test
+	public void insertionConstruction() throws IOException {
+		PermutationFlowShopProblem problem = new PermutationFlowShopProblem(instance);
+		for (LocalPheromoneModel model : LocalPheromoneModel.values()) {
+			SolverResult result = builder().constructionMode(ConstructionMode.INSERTION).localPheromoneModel(model)
+					.numIterations(10).build().execute();
+			int[] sorted = result.getSequence().clone();
+			Arrays.sort(sorted);
+			assertArrayEquals(IntStream.range(0, problem.getNumJobs()).toArray(), sorted);
+			assertEquals(result.getMakespan(), problem.computeMakespan(
+					IntStream.of(result.getSequence()).boxed().collect(Collectors.toList())));
+		}
+	}
+
+	@Test
+	public void otherObjectives() throws IOException {
+		PermutationFlowShopProblem problem = new PermutationFlowShopProblem(instance);
+		int[] dueDates = IntStream.range(0, problem.getNumJobs()).map(j -> 20 * j).toArray();
+		int[] weights = IntStream.range(0, problem.getNumJobs()).map(j -> 1 + j % 2).toArray();
+		Objective[] objectives = { new FlowtimeObjective(), new WeightedTardinessObjective(dueDates, weights) };
+		for (Objective objective : objectives) {
+			for (ConstructionMode mode : ConstructionMode.values()) {
+				SolverResult result = builder().objective(objective).constructionMode(mode).localSearch(true)
+						.nehSeeding(true).numIterations(5).build().execute();
+				assertEquals(objective.toString(), objective.evaluate(problem, result.getSequence()),
+						result.getMakespan());
+				assertTrue(result.getMakespan() <= objective.evaluate(problem, NehHeuristic.solve(problem,
+						objective.insertionEvaluator(problem))));
+			}
+		}
+	}
+
+	@Test
+	public void sameResultWhateverTheThreads() {
+		List<Supplier<AntSolverBuilder>> configurations = Arrays.asList(() -> builder(),
+				() -> builder().numNeighbours(4), () -> builder().constructionMode(ConstructionMode.INSERTION),
+				() -> builder().localSearch(true));
+		for (Supplier<AntSolverBuilder> configuration : configurations) {
+			SolverResult sequential = configuration.get().algorithm(AntAlgorithm.ACS)
+					.localPheromoneModel(LocalPheromoneModel.PER_ANT).numIterations(15).numThreads(1).build()
+					.execute();
+			SolverResult parallel = configuration.get().algorithm(AntAlgorithm.ACS)
+					.localPheromoneModel(LocalPheromoneModel.PER_ANT).numIterations(15).numThreads(4).build()
+					.execute();
+			assertArrayEquals(sequential.getSequence(), parallel.getSequence());
+			assertEquals(sequential.getMakespan(), parallel.getMakespan());
+			assertEquals(sequential.getBestIteration(), parallel.getBestIteration());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void needsTerminationCriterion() {
+		builder().numIterations(0).build();
+	}
+}
@@ -0,0 +1,101 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import be.ac.intelligence.swarm.AntSolver.AntSolverBuilder;
+
+public class BatchRunnerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static AntSolverBuilder builder() {
+		return new AntSolverBuilder().numIterations(3).numAnts(4).pheromoneDecayCoeficient(0.1).beta(2.0).alpha(1.0)
+				.q0(0.9).rho(0.1).localSearch(true);
+	}
+
+	@Test
+	public void listInstancesOfDirectory() throws IOException {
+		File directory = folder.newFolder("instances");
+		for (String name : Arrays.asList("b.txt", "a.txt", ".hidden", "a.txt" + InstanceLoader.CACHE_EXTENSION)) {
+			new File(directory, name).createNewFile();
+		}
+		new File(directory, "nested").mkdir();
+		assertEquals(Arrays.asList(directory.toPath().resolve("a.txt"), directory.toPath().resolve("b.txt")),
+				BatchRunner.listInstances(directory.toPath()));
+	}
+
+	@Test
+	public void listInstancesOfManifest() throws IOException {
+		Path manifest = folder.newFile("manifest").toPath();
+		Files.write(manifest, Arrays.asList("# Small instances", "a.txt", "", "  sub/b.txt ", "/abs/c.txt"));
+		Path directory = folder.getRoot().toPath();
+		assertEquals(Arrays.asList(directory.resolve("a.txt"), directory.resolve("sub/b.txt"), Paths.get("/abs/c.txt")),
+				BatchRunner.listInstances(manifest));
+	}
+
+	@Test
+	public void traceOfEachRun() throws Exception {
+		Path instance = Paths.get(TestInstances.randomInstance(folder, 10, 4, 1));
+		Path traces = folder.newFolder("traces").toPath();
+		int failures = new BatchRunner(BatchRunnerTest::builder, 2, traces).run(Collections.singletonList(instance),
+				Arrays.asList(1, 2), new StringWriter(), BatchRunner.OutputFormat.CSV);
+		assertEquals(0, failures);
+		for (int seed = 1; seed <= 2; seed++) {
+			List<String> lines = Files.readAllLines(traces.resolve(instance.getFileName() + "-" + seed + ".csv"));
+			assertEquals("time_ms,iteration,evaluations,makespan", lines.get(0));
+			assertTrue(lines.size() >= 2);
+		}
+	}
+
+	@Test
+	public void runsMatchSingleExecutions() throws Exception {
+		List<Path> instances = Arrays.asList(Paths.get(TestInstances.randomInstance(folder, 10, 4, 1)),
+				Paths.get(TestInstances.randomInstance(folder, 12, 3, 2)));
+		List<Integer> seeds = Arrays.asList(5, 6);
+		StringWriter output = new StringWriter();
+		int failures = new BatchRunner(BatchRunnerTest::builder, 3).run(instances, seeds, output,
+				BatchRunner.OutputFormat.CSV);
+		assertEquals(0, failures);
+
+		List<String> lines = Arrays.asList(output.toString().split(System.lineSeparator()));
+		assertEquals("instance,seed,makespan,sequence,time_ms", lines.get(0));
+		assertEquals(5, lines.size());
+		for (Path instance : instances) {
+			for (Integer seed : seeds) {
+				AntSolver solver = builder().instance(instance.toString()).seed(seed).build();
+				solver.execute();
+				String expected = instance + "," + seed + "," + solver.getBestMakespan() + ",";
+				assertEquals(expected, 1, lines.stream().filter(line -> line.startsWith(expected)).count());
+			}
+		}
+	}
+
+	@Test
+	public void failedRunsDoNotStopTheBatch() throws Exception {
+		Path malformed = folder.newFile("malformed.txt").toPath();
+		Files.write(malformed, Arrays.asList("2 2", "1 x", "3 4"));
+		List<Path> instances = Arrays.asList(malformed, Paths.get(TestInstances.randomInstance(folder, 8, 3, 1)));
+		StringWriter output = new StringWriter();
+		int failures = new BatchRunner(BatchRunnerTest::builder, 2).run(instances, Collections.singletonList(0),
+				output, BatchRunner.OutputFormat.JSONL);
+		assertEquals(1, failures);
+		String line = output.toString().trim();
+		assertTrue(line, line.matches("\\{\"instance\":\".*\",\"seed\":0,\"makespan\":\\d+,\"sequence\":\\[[\\d,]+\\],\"time_ms\":\\d+\\}"));
+	}
+}
@@ -0,0 +1,201 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import be.ac.intelligence.swarm.AntSolver.AntSolverBuilder;
+
+public class ColonyCoordinatorTest {
+
+	private static final int TIMEOUT = 10000;
+	private static final String LOOPBACK = InetAddress.getLoopbackAddress().getHostAddress();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String instance;
+
+	@Before
+	public void setUp() throws IOException {
+		instance = TestInstances.randomInstance(folder, 15, 5, 0);
+	}
+
+	private AntSolverBuilder builder(int seed) {
+		return new AntSolverBuilder().instance(instance).numAnts(5).seed(seed).pheromoneDecayCoeficient(0.1)
+				.beta(2.0).alpha(1.0).q0(0.9).rho(0.1).localSearch(false).numIterations(20);
+	}
+
+	@Test
+	public void aggregatesTheWorkers() throws Exception {
+		ExecutorService threads = Executors.newCachedThreadPool();
+		try (ColonyCoordinator coordinator = new ColonyCoordinator(0, 3, TIMEOUT)) {
+			Future<SolverResult> global = threads.submit(coordinator::run);
+			List<ColonyWorker> colonies = new ArrayList<>();
+			List<Future<SolverResult>> workers = new ArrayList<>();
+			for (int seed = 0; seed < 3; seed++) {
+				ColonyWorker worker = new ColonyWorker(builder(seed).build(), LOOPBACK, coordinator.getPort(), 5,
+						TIMEOUT);
+				colonies.add(worker);
+				workers.add(threads.submit(worker::execute));
+			}
+			SolverResult result = global.get();
+			for (Future<SolverResult> worker : workers) {
+				assertTrue(result.getMakespan() <= worker.get().getMakespan());
+			}
+			for (ColonyWorker worker : colonies) {
+				// Mean of branching factors, each one at least one
+				assertTrue(worker.getGlobalBranchingFactor() >= 1.0);
+			}
+			assertEquals(60, result.getIterations());
+			assertEquals(result.getMakespan(), new PermutationFlowShopProblem(instance).computeMakespan(
+					IntStream.of(result.getSequence()).boxed().collect(Collectors.toList())));
+		} finally {
+			threads.shutdownNow();
+		}
+	}
+
+	@Test
+	public void survivesDeadWorkers() throws Exception {
+		ExecutorService threads = Executors.newCachedThreadPool();
+		try (ColonyCoordinator coordinator = new ColonyCoordinator(0, 2, TIMEOUT)) {
+			Future<SolverResult> global = threads.submit(coordinator::run);
+			// Worker dying in the middle of its first report
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort());
+					DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+				out.writeInt(ColonyProtocol.MAGIC);
+				out.writeInt(15);
+				out.writeInt(new PermutationFlowShopProblem(instance).getFingerprint());
+				out.writeUTF(Objective.MAKESPAN.toString());
+				out.writeByte(ColonyProtocol.REPORT);
+				out.writeInt(5);
+				out.flush();
+			}
+			SolverResult alive = new ColonyWorker(builder(1).build(), LOOPBACK, coordinator.getPort(), 5, TIMEOUT)
+					.execute();
+			SolverResult result = global.get();
+			assertEquals(alive.getMakespan(), result.getMakespan());
+			assertEquals(TerminationReason.ITERATIONS, result.getTerminationReason());
+		} finally {
+			threads.shutdownNow();
+		}
+	}
+
+	@Test
+	public void rejectsOtherProblems() throws Exception {
+		String other = TestInstances.randomInstance(folder, 15, 5, 1);
+		ExecutorService threads = Executors.newCachedThreadPool();
+		try (ColonyCoordinator coordinator = new ColonyCoordinator(0, 4, TIMEOUT)) {
+			Future<SolverResult> global = threads.submit(coordinator::run);
+			SolverResult first = new ColonyWorker(builder(0).build(), LOOPBACK, coordinator.getPort(), 5, TIMEOUT)
+					.execute();
+			// Same number of jobs, another instance or another objective
+			new ColonyWorker(builder(1).instance(other).build(), LOOPBACK, coordinator.getPort(), 5, TIMEOUT)
+					.execute();
+			new ColonyWorker(builder(2).objective(new FlowtimeObjective()).build(), LOOPBACK,
+					coordinator.getPort(), 5, TIMEOUT).execute();
+			// Sequence repeating a job with a makespan nobody can beat, sent at
+			// once since the coordinator closes the connection when reading it
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort());
+					DataOutputStream out = new DataOutputStream(
+							new BufferedOutputStream(socket.getOutputStream()))) {
+				out.writeInt(ColonyProtocol.MAGIC);
+				out.writeInt(15);
+				out.writeInt(new PermutationFlowShopProblem(instance).getFingerprint());
+				out.writeUTF(Objective.MAKESPAN.toString());
+				out.writeByte(ColonyProtocol.DONE);
+				out.writeInt(20);
+				out.writeDouble(1.0);
+				ColonyProtocol.writeSolution(out, new int[15], 1);
+				out.writeUTF(TerminationReason.ITERATIONS.name());
+				out.flush();
+			}
+			SolverResult result = global.get();
+			assertEquals(first.getMakespan(), result.getMakespan());
+			assertArrayEquals(first.getSequence(), result.getSequence());
+			assertEquals(20, result.getIterations());
+		} finally {
+			threads.shutdownNow();
+		}
+	}
+
+	@Test
+	public void evaluatesTheReportedSolutions() throws Exception {
+		ExecutorService threads = Executors.newCachedThreadPool();
+		try (ColonyCoordinator coordinator = new ColonyCoordinator(0, 2, TIMEOUT)) {
+			coordinator.setInstance(new PermutationFlowShopProblem(instance), Objective.MAKESPAN);
+			Future<SolverResult> global = threads.submit(coordinator::run);
+			SolverResult honest = new ColonyWorker(builder(0).build(), LOOPBACK, coordinator.getPort(), 5, TIMEOUT)
+					.execute();
+			// Valid sequence reported with a makespan nobody can reach
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort());
+					DataOutputStream out = new DataOutputStream(
+							new BufferedOutputStream(socket.getOutputStream()))) {
+				out.writeInt(ColonyProtocol.MAGIC);
+				out.writeInt(15);
+				out.writeInt(new PermutationFlowShopProblem(instance).getFingerprint());
+				out.writeUTF(Objective.MAKESPAN.toString());
+				out.writeByte(ColonyProtocol.DONE);
+				out.writeInt(20);
+				out.writeDouble(1.0);
+				ColonyProtocol.writeSolution(out, IntStream.range(0, 15).toArray(), 1);
+				out.writeUTF(TerminationReason.ITERATIONS.name());
+				out.flush();
+			}
+			SolverResult result = global.get();
+			assertEquals(honest.getMakespan(), result.getMakespan());
+			assertArrayEquals(honest.getSequence(), result.getSequence());
+		} finally {
+			threads.shutdownNow();
+		}
+	}
+
+	@Test
+	public void stopsWorkersAtTarget() throws Exception {
+		ExecutorService threads = Executors.newCachedThreadPool();
+		try (ColonyCoordinator coordinator = new ColonyCoordinator(0, 2, TIMEOUT)) {
+			Future<SolverResult> global = threads.submit(coordinator::run);
+			// The first worker reaches its target right away, the second one
+			// would never stop alone
+			new ColonyWorker(builder(0).targetMakespan(Integer.MAX_VALUE).build(), LOOPBACK,
+					coordinator.getPort(), 1, TIMEOUT).execute();
+			AntSolver endless = builder(1).numIterations(0).stagnationLimit(Integer.MAX_VALUE).build();
+			SolverResult result = new ColonyWorker(endless, LOOPBACK, coordinator.getPort(), 1, TIMEOUT)
+					.execute();
+			assertEquals(TerminationReason.STOPPED, result.getTerminationReason());
+			assertEquals(TerminationReason.TARGET, global.get().getTerminationReason());
+		} finally {
+			threads.shutdownNow();
+		}
+	}
+
+	@Test
+	public void continuesWithoutCoordinator() throws IOException {
+		int port;
+		try (ServerSocket unused = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			port = unused.getLocalPort();
+		}
+		SolverResult result = new ColonyWorker(builder(1).build(), LOOPBACK, port, 5, TIMEOUT).execute();
+		assertEquals(TerminationReason.ITERATIONS, result.getTerminationReason());
+		assertEquals(20, result.getIterations());
+	}
+}
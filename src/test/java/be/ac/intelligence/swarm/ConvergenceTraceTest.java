@@ -0,0 +1,93 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import be.ac.intelligence.swarm.AntSolver.AntSolverBuilder;
+
+public class ConvergenceTraceTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void onlyImprovementsAreWritten() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("trace.csv");
+		try (ConvergenceTrace trace = new ConvergenceTrace(file)) {
+			trace.improved(1_500_000L, 1, 10, 100);
+			trace.improved(2_000_000L, 2, 20, 100);
+			trace.improved(3_000_000L, 3, 30, 90);
+			trace.improved(4_000_000L, 1, 40, 95);
+		}
+		assertEquals(Arrays.asList("time_ms,iteration,evaluations,makespan", "1.500,1,10,100", "3.000,3,30,90"),
+				Files.readAllLines(file));
+	}
+
+	@Test
+	public void sharedTraceStaysMonotone() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("shared.csv");
+		int numThreads = 4;
+		try (ConvergenceTrace trace = new ConvergenceTrace(file)) {
+			Thread[] threads = new Thread[numThreads];
+			for (int t = 0; t < numThreads; t++) {
+				int offset = t;
+				threads[t] = new Thread(() -> {
+					for (int makespan = 20_000 + offset; makespan > 0; makespan -= numThreads) {
+						trace.improved(0, 0, 0, makespan);
+					}
+				});
+				threads[t].start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		}
+		List<String> lines = Files.readAllLines(file);
+		int previousMakespan = Integer.MAX_VALUE;
+		for (String line : lines.subList(1, lines.size())) {
+			int makespan = Integer.parseInt(line.split(",")[3]);
+			assertTrue(makespan < previousMakespan);
+			previousMakespan = makespan;
+		}
+		assertEquals(1, previousMakespan);
+	}
+
+	@Test
+	public void solverTracesItsBestSoFar() throws IOException {
+		Path file = folder.getRoot().toPath().resolve("solver.csv");
+		SolverResult result;
+		try (ConvergenceTrace trace = new ConvergenceTrace(file)) {
+			AntSolverBuilder builder = new AntSolverBuilder()
+					.instance(TestInstances.randomInstance(folder, 20, 5, 3)).numAnts(5).seed(1)
+					.pheromoneDecayCoeficient(0.1).beta(2.0).alpha(1.0).q0(0.9).rho(0.1).localSearch(true)
+					.numIterations(30);
+			result = builder.convergenceTrace(trace).build().execute();
+		}
+		List<String> lines = Files.readAllLines(file);
+		assertTrue(lines.size() >= 2);
+		int previousMakespan = Integer.MAX_VALUE;
+		long previousEvaluations = 0;
+		for (String line : lines.subList(1, lines.size())) {
+			String[] fields = line.split(",");
+			int makespan = Integer.parseInt(fields[3]);
+			long evaluations = Long.parseLong(fields[2]);
+			assertTrue(makespan < previousMakespan);
+			assertTrue(evaluations > previousEvaluations);
+			previousMakespan = makespan;
+			previousEvaluations = evaluations;
+		}
+		String[] last = lines.get(lines.size() - 1).split(",");
+		assertEquals(result.getMakespan(), Integer.parseInt(last[3]));
+		assertEquals(result.getBestIteration(), Integer.parseInt(last[1]));
+	}
+}
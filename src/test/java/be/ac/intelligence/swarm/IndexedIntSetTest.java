@@ -0,0 +1,59 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class IndexedIntSetTest {
+
+	@Test
+	public void swapRemove() {
+		IndexedIntSet set = new IndexedIntSet(5);
+		set.addAll();
+		assertTrue(set.remove(1));
+		assertFalse(set.remove(1));
+		// The last element takes the place of the removed one
+		assertArrayEquals(new int[] { 0, 4, 2, 3 }, set.toArray());
+		assertFalse(set.contains(1));
+		assertTrue(set.contains(4));
+		assertTrue(set.remove(3));
+		assertTrue(set.add(1));
+		assertFalse(set.add(1));
+		assertArrayEquals(new int[] { 0, 4, 2, 1 }, set.toArray());
+		assertEquals(4, set.size());
+	}
+
+	@Test
+	public void copyIsIndependent() {
+		IndexedIntSet set = new IndexedIntSet(3);
+		set.add(2);
+		IndexedIntSet copy = new IndexedIntSet(set);
+		copy.remove(2);
+		copy.add(0);
+		assertArrayEquals(new int[] { 2 }, set.toArray());
+		assertArrayEquals(new int[] { 0 }, copy.toArray());
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(2));
+	}
+
+	@Test
+	public void randomElementIsUniform() {
+		IndexedIntSet set = new IndexedIntSet(10);
+		for (int i = 0; i < 10; i += 2) {
+			set.add(i);
+		}
+		RandomUtils random = new RandomUtils(0);
+		int[] counts = new int[10];
+		int draws = 50000;
+		for (int i = 0; i < draws; i++) {
+			counts[random.getRandomElement(set)]++;
+		}
+		for (int i = 0; i < 10; i++) {
+			assertEquals("Element " + i, i % 2 == 0 ? 0.2 : 0.0, (double) counts[i] / draws, 0.01);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InstanceLoaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void parseIrregularWhiteSpace() {
+		int[][] machines = parse("4 3\r\n 5  9  8 10\n\t6 4 7 2\n12 3 5  9   \n\n");
+		assertArrayEquals(new int[] { 5, 9, 8, 10 }, machines[0]);
+		assertArrayEquals(new int[] { 6, 4, 7, 2 }, machines[1]);
+		assertArrayEquals(new int[] { 12, 3, 5, 9 }, machines[2]);
+	}
+
+	@Test
+	public void parseMalformed() {
+		assertMalformed("", "line 1: missing the number of jobs");
+		assertMalformed("2 2\n1 2\n3", "line 3: missing the processing time of job 1 on machine 1");
+		assertMalformed("2 2\n1 2\n3 x", "line 3: expected a non-negative integer");
+		assertMalformed("2 2\n1 -2\n3 4", "line 2: expected a non-negative integer");
+		assertMalformed("2 2\n1 2\n3 4.5", "line 3: expected a non-negative integer");
+		assertMalformed("2 2\n1 2\n3 4 5", "line 3: unexpected content");
+		assertMalformed("0 2\n", "at least one job");
+		assertMalformed("2 2\n1 99999999999\n3 4", "number too large");
+	}
+
+	@Test
+	public void missingFile() {
+		try {
+			InstanceLoader.load(folder.getRoot().toPath().resolve("missing.txt"), false);
+			fail("Missing instance loaded");
+		} catch (UncheckedIOException e) {
+			assertTrue(e.getMessage().contains("missing.txt"));
+		}
+	}
+
+	@Test
+	public void cacheReusedWhileTheInstanceDoesNotChange() throws IOException {
+		Path instance = folder.getRoot().toPath().resolve("instance.txt");
+		Files.write(instance, Arrays.asList("2 2", "1 2", "3 4"));
+		Path cache = InstanceLoader.getCacheFile(instance);
+
+		int[][] machines = InstanceLoader.load(instance, true);
+		assertTrue(Files.exists(cache));
+		assertArrayEquals(machines, InstanceLoader.load(instance, true));
+		assertArrayEquals(machines, InstanceLoader.load(instance, false));
+
+		// A different text with the same length invalidates the copy
+		Files.write(instance, Arrays.asList("2 2", "1 2", "3 5"));
+		assertArrayEquals(new int[] { 3, 5 }, InstanceLoader.load(instance, true)[1]);
+		assertArrayEquals(new int[] { 3, 5 }, InstanceLoader.load(instance, true)[1]);
+	}
+
+	@Test
+	public void damagedCacheIgnored() throws IOException {
+		Path instance = folder.getRoot().toPath().resolve("instance.txt");
+		Files.write(instance, Arrays.asList("2 2", "1 2", "3 4"));
+		Path cache = InstanceLoader.getCacheFile(instance);
+		InstanceLoader.load(instance, true);
+
+		byte[] bytes = Files.readAllBytes(cache);
+		bytes[bytes.length - 1]++;
+		Files.write(cache, bytes);
+		assertArrayEquals(new int[] { 3, 4 }, InstanceLoader.load(instance, true)[1]);
+
+		Files.write(cache, Arrays.copyOf(bytes, 10));
+		assertArrayEquals(new int[] { 3, 4 }, InstanceLoader.load(instance, true)[1]);
+		assertEquals(bytes.length, Files.size(cache));
+	}
+
+	private static int[][] parse(String text) {
+		return InstanceLoader.parse(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)), "test");
+	}
+
+	private static void assertMalformed(String text, String message) {
+		try {
+			parse(text);
+			fail("Malformed instance accepted: " + text);
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(message));
+		}
+	}
+}
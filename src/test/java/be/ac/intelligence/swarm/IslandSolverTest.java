@@ -0,0 +1,98 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import be.ac.intelligence.swarm.AntSolver.AntSolverBuilder;
+
+public class IslandSolverTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String instance;
+
+	@Before
+	public void setUp() throws IOException {
+		instance = TestInstances.randomInstance(folder, 15, 5, 0);
+	}
+
+	private AntSolverBuilder builder() {
+		return new AntSolverBuilder().instance(instance).numAnts(5).pheromoneDecayCoeficient(0.1).beta(2.0)
+				.alpha(1.0).q0(0.9).rho(0.1).localSearch(false).numIterations(30);
+	}
+
+	@Test
+	public void topologies() {
+		assertArrayEquals(new int[] { 3 }, MigrationTopology.RING.targets(2, 4));
+		assertArrayEquals(new int[] { 0 }, MigrationTopology.RING.targets(3, 4));
+		assertArrayEquals(new int[] { 0, 1, 3 }, MigrationTopology.FULLY_CONNECTED.targets(2, 4));
+		assertArrayEquals(new int[0], MigrationTopology.FULLY_CONNECTED.targets(0, 1));
+		assertSame(MigrationTopology.FULLY_CONNECTED, MigrationTopology.fromString("fully-connected"));
+	}
+
+	@Test
+	public void bestIslandWins() {
+		for (MigrationTopology topology : MigrationTopology.values()) {
+			IslandSolver solver = new IslandSolver(this::builder, 3, topology, 5, 1);
+			SolverResult result = solver.execute();
+			PermutationFlowShopProblem problem = solver.getIslands().get(0).getProblem();
+			for (AntSolver island : solver.getIslands()) {
+				assertSame(problem, island.getProblem());
+				assertTrue(result.getMakespan() <= island.getBestMakespan());
+				assertEquals(TerminationReason.ITERATIONS, island.getTerminationReason());
+			}
+			assertEquals(result.getMakespan(), problem.computeMakespan(
+					IntStream.of(result.getSequence()).boxed().collect(Collectors.toList())));
+		}
+	}
+
+	@Test
+	public void targetStopsEveryIsland() {
+		IslandSolver solver = new IslandSolver(() -> builder().numIterations(0).targetMakespan(Integer.MAX_VALUE),
+				3, MigrationTopology.RING, 1, 3);
+		solver.execute();
+		for (AntSolver island : solver.getIslands()) {
+			assertTrue(island.getTerminationReason() == TerminationReason.TARGET
+					|| island.getTerminationReason() == TerminationReason.STOPPED);
+		}
+	}
+
+	@Test
+	public void acceptsBetterSolutions() {
+		AntSolver solver = builder().seed(1).numIterations(1).build();
+		solver.execute();
+		int makespan = solver.getBestMakespan();
+		int[] sequence = solver.getBestSequence().clone();
+		assertFalse(solver.acceptSolution(sequence));
+		assertEquals(makespan, solver.getBestMakespan());
+
+		// Better sequence: best insertion of each job until one improves
+		TaillardEvaluator evaluator = new TaillardEvaluator(solver.getProblem());
+		int n = sequence.length;
+		int better = makespan;
+		for (int k = 0; k < n && better >= makespan; k++) {
+			int job = sequence[k];
+			PfspUtils.removeAt(sequence, n, k);
+			int position = evaluator.bestInsertion(sequence, n - 1, job);
+			better = evaluator.getBestMakespan();
+			PfspUtils.insertAt(sequence, n - 1, better < makespan ? position : k, job);
+		}
+		assertTrue(better < makespan);
+		assertTrue(solver.acceptSolution(sequence));
+		assertEquals(better, solver.getBestMakespan());
+		assertArrayEquals(sequence, solver.getBestSequence());
+	}
+}
@@ -0,0 +1,99 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import be.ac.intelligence.swarm.AntSolver.AntSolverBuilder;
+
+public class MetricsSinkTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private String instance;
+
+	@Before
+	public void setUp() throws IOException {
+		instance = TestInstances.randomInstance(folder, 15, 5, 0);
+	}
+
+	private AntSolverBuilder builder() {
+		return new AntSolverBuilder().instance(instance).numAnts(5).seed(1).pheromoneDecayCoeficient(0.1).beta(2.0)
+				.alpha(1.0).q0(0.9).rho(0.1).localSearch(true).numIterations(12);
+	}
+
+	private static IterationMetrics metrics(int iteration) {
+		return new IterationMetrics(iteration, 10, 12.5, 15, 10, 100, 50, 50, 20, 64);
+	}
+
+	@Test
+	public void ringBufferKeepsTheLast() {
+		RingBufferMetricsSink sink = new RingBufferMetricsSink(3);
+		sink.record(metrics(1));
+		sink.record(metrics(2));
+		assertEquals(2, sink.snapshot().size());
+		for (int i = 3; i <= 7; i++) {
+			sink.record(metrics(i));
+		}
+		List<IterationMetrics> kept = sink.snapshot();
+		assertEquals(3, kept.size());
+		assertEquals(5, kept.get(0).getIteration());
+		assertEquals(7, kept.get(2).getIteration());
+		assertEquals(7, sink.getCount());
+		assertEquals(1e8, kept.get(0).getEvaluationsPerSecond(), 1e-6);
+	}
+
+	@Test
+	public void solverRecordsEveryIteration() {
+		RingBufferMetricsSink sink = new RingBufferMetricsSink(100);
+		SolverResult result = builder().metricsSink(sink).numThreads(2).build().execute();
+		List<IterationMetrics> metrics = sink.snapshot();
+		assertEquals(12, metrics.size());
+		for (int i = 0; i < metrics.size(); i++) {
+			IterationMetrics iteration = metrics.get(i);
+			assertEquals(i + 1, iteration.getIteration());
+			assertTrue(iteration.getBestMakespan() <= iteration.getMeanMakespan());
+			assertTrue(iteration.getMeanMakespan() <= iteration.getWorstMakespan());
+			assertTrue(iteration.getBestSoFarMakespan() <= iteration.getBestMakespan());
+			// Five tours plus at least one pass of insertions of the 15 jobs
+			assertTrue(iteration.getEvaluations() >= 5 + 15 * 15);
+			assertTrue(iteration.getConstructionTime() > 0);
+		}
+		assertEquals(result.getMakespan(), metrics.get(11).getBestSoFarMakespan());
+	}
+
+	@Test
+	public void csvLinePerIteration() throws IOException {
+		StringWriter output = new StringWriter();
+		try (CsvMetricsSink sink = new CsvMetricsSink(output)) {
+			builder().metricsSink(sink).build().execute();
+		}
+		String[] lines = output.toString().split(System.lineSeparator());
+		assertEquals(13, lines.length);
+		assertTrue(lines[0].startsWith("iteration,best,mean,worst"));
+		assertEquals(11, lines[12].split(",").length);
+		assertTrue(lines[12].startsWith("12,"));
+	}
+
+	@Test
+	public void publishedThroughJmx() throws Exception {
+		try (JmxMetricsSink sink = new JmxMetricsSink("test")) {
+			builder().metricsSink(sink).build().execute();
+			Object iteration = ManagementFactory.getPlatformMBeanServer().getAttribute(sink.getName(), "Iteration");
+			assertEquals(12, iteration);
+			assertTrue(sink.getTotalEvaluations() >= 12 * (5 + 15 * 15));
+		}
+		assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(null, null).stream()
+				.noneMatch(name -> name.getDomain().equals("be.ac.intelligence.swarm")));
+	}
+}
@@ -0,0 +1,66 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MoveEvaluatorTest {
+
+	private static final int NUM_JOBS = 10;
+	private static final int NUM_MACHINES = 4;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private PermutationFlowShopProblem problem;
+	private MoveEvaluator evaluator;
+	private final int[] sequence = { 6, 2, 9, 0, 4, 7, 1, 8, 3, 5 };
+
+	@Before
+	public void setUp() throws IOException {
+		problem = new PermutationFlowShopProblem(TestInstances.randomInstance(folder, NUM_JOBS, NUM_MACHINES, 1));
+		evaluator = new MoveEvaluator(problem);
+		evaluator.load(sequence, NUM_JOBS);
+	}
+
+	@Test
+	public void load() {
+		assertEquals(makespan(sequence), evaluator.getMakespan());
+	}
+
+	@Test
+	public void evaluateSwap() {
+		for (int i = 0; i < NUM_JOBS; i++) {
+			for (int j = 0; j < NUM_JOBS; j++) {
+				int[] swapped = sequence.clone();
+				swapped[i] = sequence[j];
+				swapped[j] = sequence[i];
+				assertEquals("Swap " + i + ", " + j, makespan(swapped), evaluator.evaluateSwap(i, j));
+			}
+		}
+	}
+
+	@Test
+	public void evaluateMove() {
+		int[] makespans = new int[NUM_JOBS];
+		for (int from = 0; from < NUM_JOBS; from++) {
+			evaluator.evaluateInsertNeighbourhood(from, makespans);
+			for (int to = 0; to < NUM_JOBS; to++) {
+				int[] moved = sequence.clone();
+				PfspUtils.removeAt(moved, NUM_JOBS, from);
+				PfspUtils.insertAt(moved, NUM_JOBS - 1, to, sequence[from]);
+				assertEquals("Move " + from + " to " + to, makespan(moved), evaluator.evaluateMove(from, to));
+				assertEquals("Bulk move " + from + " to " + to, makespan(moved), makespans[to]);
+			}
+		}
+	}
+
+	private int makespan(int[] jobsSequence) {
+		return problem.computeMakespan(jobsSequence, jobsSequence.length, 0, new int[NUM_MACHINES][NUM_JOBS]);
+	}
+}
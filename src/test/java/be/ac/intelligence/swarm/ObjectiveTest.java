@@ -0,0 +1,134 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ObjectiveTest {
+
+	private static final int NUM_JOBS = 12;
+	private static final int NUM_MACHINES = 5;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private PermutationFlowShopProblem problem;
+	private int[] dueDates;
+	private int[] weights;
+	private Objective[] objectives;
+
+	@Before
+	public void setUp() throws IOException {
+		problem = new PermutationFlowShopProblem(TestInstances.randomInstance(folder, NUM_JOBS, NUM_MACHINES, 0));
+		dueDates = new int[NUM_JOBS];
+		weights = new int[NUM_JOBS];
+		for (int j = 0; j < NUM_JOBS; j++) {
+			dueDates[j] = problem.getTimeForJobs()[j] * (1 + j % 4);
+			weights[j] = 1 + j % 3;
+		}
+		objectives = new Objective[] { Objective.MAKESPAN, new FlowtimeObjective(),
+				new WeightedTardinessObjective(dueDates, weights) };
+	}
+
+	/**
+	 * Value computed directly from the end times of the jobs
+	 */
+	private int naiveValue(Objective objective, int[] sequence) {
+		int[][] makespanMatrix = new int[NUM_MACHINES][sequence.length];
+		problem.computeMakespan(sequence, sequence.length, 0, makespanMatrix);
+		int[] completionTimes = makespanMatrix[NUM_MACHINES - 1];
+		if (objective instanceof MakespanObjective) {
+			return completionTimes[sequence.length - 1];
+		}
+		int sum = 0;
+		for (int j = 0; j < sequence.length; j++) {
+			int job = sequence[j];
+			sum += objective instanceof FlowtimeObjective ? completionTimes[j]
+					: weights[job] * Math.max(0, completionTimes[j] - dueDates[job]);
+		}
+		return sum;
+	}
+
+	@Test
+	public void incrementalScheduleMatchesFullEvaluation() {
+		int[] sequence = { 3, 7, 0, 11, 5, 9, 1, 4, 10, 2, 6, 8 };
+		for (Objective objective : objectives) {
+			PfspSchedule schedule = new PfspSchedule(problem, objective);
+			for (int job : sequence) {
+				schedule.scheduleJob(job);
+				schedule.updateMakespan(schedule.getNumScheduled() - 1);
+			}
+			assertEquals(objective.toString(), naiveValue(objective, sequence), schedule.getObjectiveValue());
+			assertEquals(objective.toString(), objective.evaluate(problem, sequence), schedule.getObjectiveValue());
+		}
+		assertEquals(new PfspSchedule(problem).getObjective(), Objective.MAKESPAN);
+	}
+
+	@Test
+	public void insertionsMatchFullEvaluation() {
+		int[] sequence = { 3, 7, 0, 11, 5, 9, 1, 4, 10, 2, 6 };
+		int job = 8;
+		for (Objective objective : objectives) {
+			int bestPosition = 0;
+			int bestValue = Integer.MAX_VALUE;
+			int[] candidate = new int[NUM_JOBS];
+			for (int k = 0; k <= sequence.length; k++) {
+				System.arraycopy(sequence, 0, candidate, 0, sequence.length);
+				PfspUtils.insertAt(candidate, sequence.length, k, job);
+				int value = objective.evaluate(problem, candidate);
+				if (value < bestValue) {
+					bestValue = value;
+					bestPosition = k;
+				}
+			}
+			InsertionEvaluator evaluator = new ObjectiveInsertionEvaluator(problem, objective);
+			assertEquals(objective.toString(), bestPosition, evaluator.bestInsertion(sequence, sequence.length, job));
+			assertEquals(objective.toString(), bestValue, evaluator.getBestValue());
+			InsertionEvaluator own = objective.insertionEvaluator(problem);
+			assertEquals(objective.toString(), bestPosition, own.bestInsertion(sequence, sequence.length, job));
+			assertEquals(objective.toString(), bestValue, own.getBestValue());
+		}
+	}
+
+	@Test
+	public void nehForAnyObjective() {
+		Objective flowtime = new FlowtimeObjective();
+		assertArrayEquals(NehHeuristic.solve(problem),
+				NehHeuristic.solve(problem, new ObjectiveInsertionEvaluator(problem, Objective.MAKESPAN)));
+		int[] sorted = NehHeuristic.solve(problem, flowtime.insertionEvaluator(problem));
+		Arrays.sort(sorted);
+		assertEquals(0, sorted[0]);
+		assertEquals(NUM_JOBS - 1, sorted[NUM_JOBS - 1]);
+	}
+
+	@Test
+	public void loadsDueDates() throws IOException {
+		Path file = folder.newFile("due.txt").toPath();
+		Files.write(file, Arrays.asList("10 2", "", "  25", "7\t3"));
+		WeightedTardinessObjective objective = WeightedTardinessObjective.load(file);
+		// Jobs completing at 12, 30 and 31
+		assertEquals(2 * 2 + 5 + 3 * 24, objective.evaluate(new int[] { 0, 1, 2 }, 3, 0, new int[] { 12, 30, 31 },
+				new int[3]));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void malformedDueDates() throws IOException {
+		Path file = folder.newFile("due.txt").toPath();
+		Files.write(file, Arrays.asList("10 2", "ten"));
+		WeightedTardinessObjective.load(file);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void dueDatesOfAnotherInstance() {
+		new WeightedTardinessObjective(new int[3], new int[3]).validate(problem);
+	}
+}
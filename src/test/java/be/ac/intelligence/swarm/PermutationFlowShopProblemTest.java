@@ -0,0 +1,102 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PermutationFlowShopProblemTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private PermutationFlowShopProblem problem;
+
+	@Before
+	public void setUp() throws IOException {
+		// 4 jobs, 3 machines. One line per machine
+		File instance = folder.newFile("instance.txt");
+		Files.write(instance.toPath(), Arrays.asList("4 3", " 5  9  8 10", " 6  4  7  2", "12 3 5  9"));
+		problem = new PermutationFlowShopProblem(instance.getAbsolutePath());
+	}
+
+	@Test
+	public void computeMakespan() {
+		// Hand computed end times for the sequence 0 1 2 3:
+		// m0: 5 14 22 32, m1: 11 18 29 34, m2: 23 26 34 43
+		assertEquals(43, problem.computeMakespan(Arrays.asList(0, 1, 2, 3)));
+	}
+
+	@Test
+	public void computeMakespanFromOffset() {
+		PfspSchedule schedule = new PfspSchedule(problem);
+		schedule.computeMakespan(Arrays.asList(2, 0, 1, 3), 0);
+		int fromOffset = schedule.computeMakespan(Arrays.asList(2, 0, 3, 1), 2);
+		assertEquals(problem.computeMakespan(Arrays.asList(2, 0, 3, 1)), fromOffset);
+	}
+
+	@Test
+	public void candidateList() {
+		// Total times: 23 16 20 21
+		PfspSchedule schedule = new PfspSchedule(problem);
+		assertEquals(4, schedule.computeCandidateList());
+		assertArrayEquals(new int[] { 0, 3, 2, 1 }, schedule.getCandidateList());
+		schedule.scheduleJob(1);
+		// Average 16: every other job is a candidate, longest first
+		assertEquals(3, schedule.computeCandidateList());
+		assertArrayEquals(new int[] { 0, 3, 2 }, Arrays.copyOf(schedule.getCandidateList(), 3));
+		schedule.scheduleJob(3);
+		// Average 18.5: jobs 0 and 2
+		assertEquals(2, schedule.computeCandidateList());
+		schedule.scheduleJob(0);
+		// Average 20: no job above it, the remaining job is the candidate
+		assertEquals(1, schedule.computeCandidateList());
+		assertEquals(2, schedule.getCandidateList()[0]);
+		schedule.reset();
+		assertEquals(4, schedule.computeCandidateList());
+		assertArrayEquals(new int[] { 0, 3, 2, 1 }, schedule.getCandidateList());
+	}
+
+	@Test
+	public void lowerBound() {
+		// Machine 2: shortest head 11 (job 0) plus its 29 units of work
+		assertEquals(40, problem.getLowerBound());
+	}
+
+	@Test
+	public void lowerBoundBelowEveryMakespan() throws IOException {
+		PermutationFlowShopProblem random = new PermutationFlowShopProblem(
+				TestInstances.randomInstance(folder, 8, 4, 3));
+		List<Integer> sequence = IntStream.range(0, 8).boxed().collect(Collectors.toList());
+		Random shuffle = new Random(0);
+		for (int k = 0; k < 200; k++) {
+			Collections.shuffle(sequence, shuffle);
+			assertTrue(random.getLowerBound() <= random.computeMakespan(sequence));
+		}
+	}
+
+	@Test
+	public void computeMakespanTwoJobs() {
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 4; j++) {
+				if (i != j) {
+					assertEquals(problem.computeMakespan(Arrays.asList(i, j)), problem.computeMakespan(i, j));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+public class PfspUtilsTest {
+
+	@Test
+	public void nearestNeighboursSortedByDecreasingValue() {
+		double[] values = { //
+				9.0, 0.2, 0.5, 0.1, //
+				0.3, 9.0, 0.3, 0.4, //
+				0.7, 0.6, 9.0, 0.8, //
+				0.1, 0.2, 0.3, 9.0 };
+		int[] neighbours = PfspUtils.nearestNeighbours(values, 4, 2);
+		assertArrayEquals(new int[] { 2, 1, 3, 0, 3, 0, 2, 1 }, neighbours);
+	}
+
+	@Test
+	public void nearestNeighboursOfEveryOtherColumn() {
+		double[] values = new double[9];
+		int[] neighbours = PfspUtils.nearestNeighbours(values, 3, 2);
+		assertArrayEquals(new int[] { 1, 2, 0, 2, 0, 1 }, neighbours);
+	}
+}
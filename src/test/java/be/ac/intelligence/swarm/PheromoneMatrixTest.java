@@ -0,0 +1,48 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PheromoneMatrixTest {
+
+	private static final double DELTA = 1e-12;
+
+	@Test
+	public void evaporateKeepsChoiceInfo() {
+		double[] heuristic = { 1.0, 0.5, 0.25, 2.0 };
+		PheromoneMatrix pheromone = new PheromoneMatrix(2, heuristic, 2.0, 1.0);
+		pheromone.fill(1.0);
+		pheromone.set(0, 1, 0.2);
+		pheromone.evaporate(0.5, 0.15);
+		assertEquals(0.5, pheromone.get(0, 0), DELTA);
+		assertEquals(0.15, pheromone.get(0, 1), DELTA);
+		for (int ij = 0; ij < heuristic.length; ij++) {
+			double tau = pheromone.getPheromone()[ij];
+			assertEquals(tau * tau * heuristic[ij], pheromone.getChoiceInfo()[ij], DELTA);
+		}
+	}
+
+	@Test
+	public void branchingFactor() {
+		int n = 4;
+		double[] heuristic = new double[n * n];
+		Arrays.fill(heuristic, 1.0);
+		PheromoneMatrix pheromone = new PheromoneMatrix(n, heuristic, 1.0, 1.0);
+		pheromone.fill(0.01);
+		// Nothing learnt yet: every successor is a branch
+		assertEquals(3.0, pheromone.branchingFactor(0.05), DELTA);
+
+		// Converged to 0 1 2 3, the last job carries no information
+		pheromone.set(0, 1, 1.0);
+		pheromone.set(1, 2, 1.0);
+		pheromone.set(2, 3, 1.0);
+		assertEquals(1.0, pheromone.branchingFactor(0.05), DELTA);
+
+		// Second choice for job 0 above the cutoff
+		pheromone.set(0, 3, 0.5);
+		assertEquals(4.0 / 3, pheromone.branchingFactor(0.05), DELTA);
+	}
+}
@@ -1,12 +1,10 @@
 package be.ac.intelligence.swarm;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
-import java.util.AbstractMap;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.function.IntSupplier;
 
 import org.apache.log4j.Logger;
 import org.junit.Test;
@@ -15,25 +13,48 @@ public class RandomUtilsTest {
 
 	private final static Logger LOGGER = Logger.getLogger(RandomUtilsTest.class);
 
+	/**
+	 * Unnormalized weights, 5 out of 20 for the first index and none for the
+	 * third one
+	 */
+	private static final double[] WEIGHTS = { 2.5, 5.0, 0.0, 1.5, 1.0, 100.0 };
+	private static final int LENGTH = 5;
+
 	@Test
 	public void getRandomRange() {
 		int start = 0;
 		int end = 10;
-		Set<Integer> randomSetSequence = RandomUtils.getInstance(0).getRandomRange(start, end, 1, 4);
+		Set<Integer> randomSetSequence = new RandomUtils(0).getRandomRange(start, end, 1, 4);
 		LOGGER.debug(randomSetSequence);
 		assertTrue("Exclusion of numbers is not being done properly", randomSetSequence.size() != start - end);
 	}
-	
+
 	@Test
-	public void getRandomFromList(){
-		List<Map.Entry<Integer, Double>> list = new ArrayList<>();
-		list.add(new AbstractMap.SimpleEntry<Integer, Double>(0, 0.25));
-		list.add(new AbstractMap.SimpleEntry<Integer, Double>(1, 0.25));
-		list.add(new AbstractMap.SimpleEntry<Integer, Double>(2, 0.15));
-		list.add(new AbstractMap.SimpleEntry<Integer, Double>(3, 0.35));
-		LOGGER.debug("Random Numbers From List:");
-		LOGGER.debug(RandomUtils.getInstance(0).getRandomFromList(list));
-		LOGGER.debug(RandomUtils.getInstance(0).getRandomFromList(list));
-		LOGGER.debug(RandomUtils.getInstance(0).getRandomFromList(list));
+	public void sampleCumulative() {
+		RandomUtils random = new RandomUtils(0);
+		double[] cumulative = WEIGHTS.clone();
+		assertEquals(10.0, RandomUtils.cumulate(cumulative, LENGTH), 1e-12);
+		assertEquals(7.5, cumulative[2], 1e-12);
+		assertFrequencies(() -> random.sampleCumulative(cumulative, LENGTH));
+	}
+
+	@Test
+	public void singleWeight() {
+		RandomUtils random = new RandomUtils(0);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, random.sampleCumulative(new double[] { 0.3 }, 1));
+		}
+	}
+
+	private static void assertFrequencies(IntSupplier sampler) {
+		int draws = 200000;
+		int[] counts = new int[LENGTH];
+		for (int i = 0; i < draws; i++) {
+			counts[sampler.getAsInt()]++;
+		}
+		assertEquals(0, counts[2]);
+		for (int k = 0; k < LENGTH; k++) {
+			assertEquals("Index " + k, WEIGHTS[k] / 10.0, (double) counts[k] / draws, 0.01);
+		}
 	}
 }
@@ -0,0 +1,81 @@
+package be.ac.intelligence.swarm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TaillardEvaluatorTest {
+
+	private static final int NUM_JOBS = 12;
+	private static final int NUM_MACHINES = 5;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private PermutationFlowShopProblem problem;
+
+	@Before
+	public void setUp() throws IOException {
+		problem = new PermutationFlowShopProblem(TestInstances.randomInstance(folder, NUM_JOBS, NUM_MACHINES, 0));
+	}
+
+	@Test
+	public void insertionMakespansMatchFullEvaluation() {
+		int[] sequence = { 3, 7, 0, 11, 5, 9, 1, 4, 10, 2, 6 };
+		int job = 8;
+		TaillardEvaluator evaluator = new TaillardEvaluator(problem);
+		int bestPosition = evaluator.bestInsertion(sequence, sequence.length, job);
+
+		int[] candidate = new int[NUM_JOBS];
+		for (int k = 0; k <= sequence.length; k++) {
+			System.arraycopy(sequence, 0, candidate, 0, sequence.length);
+			PfspUtils.insertAt(candidate, sequence.length, k, job);
+			int makespan = problem.computeMakespan(candidate, NUM_JOBS, 0, new int[NUM_MACHINES][NUM_JOBS]);
+			assertEquals("Makespan for position " + k, makespan, evaluator.getInsertionMakespans()[k]);
+		}
+		assertEquals(evaluator.getInsertionMakespans()[bestPosition], evaluator.getBestMakespan());
+	}
+
+	@Test
+	public void insertionInPartialSequence() {
+		int[] sequence = { 4, 1, 0, 0, 0 };
+		TaillardEvaluator evaluator = new TaillardEvaluator(problem);
+		evaluator.bestInsertion(sequence, 2, 2);
+		assertEquals(problem.computeMakespan(Arrays.asList(2, 4, 1)), evaluator.getInsertionMakespans()[0]);
+		assertEquals(problem.computeMakespan(Arrays.asList(4, 1, 2)), evaluator.getInsertionMakespans()[2]);
+	}
+
+	@Test
+	public void nehMatchesNaiveInsertion() {
+		int[] order = problem.getJobsByTime();
+		int[] expected = new int[NUM_JOBS];
+		int[] candidate = new int[NUM_JOBS];
+		for (int k = 0; k < NUM_JOBS; k++) {
+			int bestPosition = 0;
+			int bestMakespan = Integer.MAX_VALUE;
+			for (int position = 0; position <= k; position++) {
+				System.arraycopy(expected, 0, candidate, 0, k);
+				PfspUtils.insertAt(candidate, k, position, order[k]);
+				int makespan = problem.computeMakespan(candidate, k + 1, 0, new int[NUM_MACHINES][NUM_JOBS]);
+				if (makespan < bestMakespan) {
+					bestMakespan = makespan;
+					bestPosition = position;
+				}
+			}
+			PfspUtils.insertAt(expected, k, bestPosition, order[k]);
+		}
+		int[] neh = NehHeuristic.solve(problem);
+		assertArrayEquals(expected, neh);
+		int[] sorted = neh.clone();
+		Arrays.sort(sorted);
+		assertArrayEquals(IntStream.range(0, NUM_JOBS).toArray(), sorted);
+	}
+}
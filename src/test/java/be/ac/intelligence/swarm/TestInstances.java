@@ -0,0 +1,44 @@
+package be.ac.intelligence.swarm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Helper to write random instances for the tests
+ */
+public class TestInstances {
+
+	/**
+	 * Writes an instance with processing times between 1 and 99 in the given
+	 * folder and returns its path
+	 * 
+	 * @param folder
+	 * @param numJobs
+	 * @param numMachines
+	 * @param seed
+	 * @return
+	 * @throws IOException
+	 */
+	public static String randomInstance(TemporaryFolder folder, int numJobs, int numMachines, long seed)
+			throws IOException {
+		Random random = new Random(seed);
+		List<String> lines = new ArrayList<>();
+		lines.add(numJobs + " " + numMachines);
+		for (int i = 0; i < numMachines; i++) {
+			StringBuilder line = new StringBuilder();
+			for (int j = 0; j < numJobs; j++) {
+				line.append(1 + random.nextInt(99)).append(" ");
+			}
+			lines.add(line.toString());
+		}
+		File instance = folder.newFile();
+		Files.write(instance.toPath(), lines);
+		return instance.getAbsolutePath();
+	}
+}